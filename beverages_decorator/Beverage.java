@@ -1,6 +1,39 @@
 package beverages_decorator;
 
 public abstract class Beverage {
+
+	// Whether the class prices from the table it is given: cost(PriceTable) is
+	// declared at least as deep as cost(), so it is not the fallback below
+	private static final ClassValue<Boolean> USES_PRICE_TABLE = new ClassValue<Boolean>() {
+		@Override
+		protected Boolean computeValue(Class<?> type) {
+			return declaringClass(type, "cost").isAssignableFrom(declaringClass(type, "cost", PriceTable.class));
+		}
+	};
+
 	public abstract int cost();
 
+	// Cost under the given prices; lets an order keep the prices it started with.
+	// Beverages that only implement cost() ignore the snapshot and use their own prices.
+	public int cost(PriceTable prices) {
+		return cost();
+	}
+
+	boolean usesPriceTable() {
+		return USES_PRICE_TABLE.get(getClass());
+	}
+
+	// The most derived class that declares the method, or null if none does
+	static Class<?> declaringClass(Class<?> type, String name, Class<?>... parameters) {
+		for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+			try {
+				c.getDeclaredMethod(name, parameters);
+				return c;
+			} catch (NoSuchMethodException e) {
+				// Keep looking in the superclass
+			}
+		}
+		return null;
+	}
+
 }
\ No newline at end of file
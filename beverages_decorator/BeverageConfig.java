@@ -0,0 +1,277 @@
+package beverages_decorator;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A drink as a base beverage plus how many of each add-on it has, packed
+ * into one long. Configurations are interned: asking for the same drink
+ * twice returns the same instance, so they compare with == and building
+ * an order allocates nothing once its drink has been seen.
+ *
+ * Layout of code(): bits 0-15 milk, 16-31 mocha, 32-47 sugar, 48-55 base.
+ */
+public final class BeverageConfig extends Beverage {
+
+	public enum Base {
+		CAPPUCCINO,
+		LATTE;
+
+		public int cost() {
+			return PriceTable.current().basePrice(this);
+		}
+
+		Beverage newBeverage() {
+			return this == CAPPUCCINO ? new Cappuccino() : new Latte();
+		}
+
+		static Base of(Beverage beverage) {
+			if (beverage instanceof Cappuccino) {
+				return CAPPUCCINO;
+			}
+			if (beverage instanceof Latte) {
+				return LATTE;
+			}
+			throw new IllegalArgumentException("Unknown base beverage: " + beverage.getClass().getSimpleName());
+		}
+	}
+
+	public enum AddOn {
+		MILK(MilkDecorator.class),
+		MOCHA(MochaDecorator.class),
+		SUGAR(SugarDecorator.class);
+
+		private final Class<? extends BeverageDecorator> type;
+
+		AddOn(Class<? extends BeverageDecorator> type) {
+			this.type = type;
+		}
+
+		public int cost() {
+			return PriceTable.current().addOnPrice(this);
+		}
+
+		int shift() {
+			return ordinal() * COUNT_BITS;
+		}
+
+		Beverage decorate(Beverage beverage) {
+			switch (this) {
+			case MILK:
+				return new MilkDecorator(beverage);
+			case MOCHA:
+				return new MochaDecorator(beverage);
+			default:
+				return new SugarDecorator(beverage);
+			}
+		}
+
+		static AddOn of(Class<? extends BeverageDecorator> type) {
+			for (AddOn addOn : values()) {
+				if (addOn.type == type) {
+					return addOn;
+				}
+			}
+			throw new IllegalArgumentException("Unknown add-on: " + type.getSimpleName());
+		}
+	}
+
+	static final int COUNT_BITS = 16;
+	public static final int MAX_COUNT = (1 << COUNT_BITS) - 1;
+	private static final int BASE_SHIFT = 48;
+	private static final Base[] BASES = Base.values();
+	private static final AddOn[] ADD_ONS = AddOn.values();
+
+	private final long code;
+	// Dense id in interning order, so per-configuration data can live in arrays
+	private final int index;
+
+	private BeverageConfig(long code, int index) {
+		this.code = code;
+		this.index = index;
+	}
+
+	public static BeverageConfig of(Base base, int milk, int mocha, int sugar) {
+		if (base == null) {
+			throw new IllegalArgumentException("Base must not be null");
+		}
+		return of(encode(base, milk, mocha, sugar));
+	}
+
+	public static BeverageConfig of(long code) {
+		BeverageConfig config = Interner.find(code);
+		return config != null ? config : Interner.intern(validate(code));
+	}
+
+	// Only chains of the standard add-ons at their standard prices have a configuration
+	public static BeverageConfig from(Beverage beverage) {
+		if (beverage instanceof BeverageConfig) {
+			return (BeverageConfig) beverage;
+		}
+		BeverageRecipe recipe = BeverageRecipe.compile(beverage);
+		PriceTable prices = PriceTable.current();
+		int[] counts = new int[ADD_ONS.length];
+		for (int i = 0; i < recipe.getAddOns().size(); i++) {
+			AddOn addOn = AddOn.of(recipe.getAddOns().get(i));
+			int addOnCost = recipe.getAddOnCost(i, prices);
+			if (addOnCost != prices.addOnPrice(addOn)) {
+				throw new IllegalArgumentException(addOn + " with non-standard cost " + addOnCost);
+			}
+			counts[addOn.ordinal()]++;
+		}
+		Beverage base = recipe.getBase();
+		Base kind = base instanceof BeverageConfig ? ((BeverageConfig) base).getBase() : Base.of(base);
+		if (base instanceof BeverageConfig) {
+			for (AddOn addOn : ADD_ONS) {
+				counts[addOn.ordinal()] += ((BeverageConfig) base).count(addOn);
+			}
+		}
+		return of(kind, counts[AddOn.MILK.ordinal()], counts[AddOn.MOCHA.ordinal()], counts[AddOn.SUGAR.ordinal()]);
+	}
+
+	public BeverageConfig with(AddOn addOn) {
+		if (count(addOn) == MAX_COUNT) {
+			throw new IllegalArgumentException("Too many " + addOn);
+		}
+		return of(code + (1L << addOn.shift()));
+	}
+
+	@Override
+	public int cost() {
+		return cost(PriceTable.current());
+	}
+
+	// A handful of multiply-adds, so there is nothing worth caching per price version
+	@Override
+	public int cost(PriceTable prices) {
+		int total = prices.basePrice(getBase());
+		for (AddOn addOn : ADD_ONS) {
+			total = Math.addExact(total, Math.multiplyExact(count(addOn), prices.addOnPrice(addOn)));
+		}
+		return total;
+	}
+
+	public long code() {
+		return code;
+	}
+
+	int index() {
+		return index;
+	}
+
+	public Base getBase() {
+		return base(code);
+	}
+
+	public int count(AddOn addOn) {
+		return count(code, addOn);
+	}
+
+	// Builds the equivalent decorator chain: milk, then mocha, then sugar
+	public Beverage toBeverage() {
+		Beverage beverage = getBase().newBeverage();
+		for (AddOn addOn : ADD_ONS) {
+			for (int i = count(addOn); i > 0; i--) {
+				beverage = addOn.decorate(beverage);
+			}
+		}
+		return beverage;
+	}
+
+	@Override
+	public String toString() {
+		return getBase() + " milk=" + count(AddOn.MILK) + " mocha=" + count(AddOn.MOCHA) + " sugar=" + count(AddOn.SUGAR);
+	}
+
+	static long encode(Base base, int milk, int mocha, int sugar) {
+		checkCount(milk);
+		checkCount(mocha);
+		checkCount(sugar);
+		return (long) base.ordinal() << BASE_SHIFT
+				| (long) sugar << AddOn.SUGAR.shift()
+				| (long) mocha << AddOn.MOCHA.shift()
+				| (long) milk << AddOn.MILK.shift();
+	}
+
+	static Base base(long code) {
+		return BASES[(int) (code >>> BASE_SHIFT)];
+	}
+
+	static int count(long code, AddOn addOn) {
+		return (int) (code >>> addOn.shift()) & MAX_COUNT;
+	}
+
+	private static void checkCount(int count) {
+		if (count < 0 || count > MAX_COUNT) {
+			throw new IllegalArgumentException("Add-on count must be between 0 and " + MAX_COUNT + ": " + count);
+		}
+	}
+
+	private static long validate(long code) {
+		if (code < 0 || (code >>> BASE_SHIFT) >= BASES.length) {
+			throw new IllegalArgumentException("Invalid beverage code: " + code);
+		}
+		return code;
+	}
+
+	/**
+	 * Open-addressing table from code to configuration. Lookups never lock;
+	 * only adding a configuration not seen before does, and that happens
+	 * once per distinct drink.
+	 */
+	private static final class Interner {
+
+		private static volatile AtomicReferenceArray<BeverageConfig> table = new AtomicReferenceArray<>(1024);
+		private static int size;
+
+		static BeverageConfig find(long code) {
+			AtomicReferenceArray<BeverageConfig> t = table;
+			int mask = t.length() - 1;
+			for (int i = slot(code, mask); ; i = (i + 1) & mask) {
+				BeverageConfig c = t.get(i);
+				if (c == null || c.code == code) {
+					return c;
+				}
+			}
+		}
+
+		static synchronized BeverageConfig intern(long code) {
+			BeverageConfig existing = find(code);
+			if (existing != null) {
+				return existing;
+			}
+			if ((size + 1) * 4 > table.length() * 3) {
+				resize();
+			}
+			BeverageConfig config = new BeverageConfig(code, size);
+			insert(table, config);
+			size++;
+			return config;
+		}
+
+		private static void resize() {
+			AtomicReferenceArray<BeverageConfig> old = table;
+			AtomicReferenceArray<BeverageConfig> grown = new AtomicReferenceArray<>(old.length() * 2);
+			for (int i = 0; i < old.length(); i++) {
+				BeverageConfig c = old.get(i);
+				if (c != null) {
+					insert(grown, c);
+				}
+			}
+			table = grown;
+		}
+
+		private static void insert(AtomicReferenceArray<BeverageConfig> t, BeverageConfig config) {
+			int mask = t.length() - 1;
+			int i = slot(config.code, mask);
+			while (t.get(i) != null) {
+				i = (i + 1) & mask;
+			}
+			t.set(i, config);
+		}
+
+		private static int slot(long code, int mask) {
+			long h = code * 0x9E3779B97F4A7C15L;
+			return (int) (h >>> 32) & mask;
+		}
+	}
+}
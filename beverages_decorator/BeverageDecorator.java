@@ -4,12 +4,40 @@ public abstract class BeverageDecorator extends Beverage {
 
 	protected final Beverage wrapped;
 
+	// Whether the class prices its own layer, i.e. declares addOnCost at least as
+	// deep as cost() and cost(PriceTable); only such layers are flattened into recipes
+	private static final ClassValue<Boolean> PRICES_OWN_LAYER = new ClassValue<Boolean>() {
+		@Override
+		protected Boolean computeValue(Class<?> type) {
+			Class<?> addOn = declaringClass(type, "addOnCost", PriceTable.class);
+			return addOn != null
+					&& declaringClass(type, "cost").isAssignableFrom(addOn)
+					&& declaringClass(type, "cost", PriceTable.class).isAssignableFrom(addOn);
+		}
+	};
+
 	protected BeverageDecorator(Beverage wrapped) {
 		if (wrapped == null) {
 			throw new IllegalArgumentException("Wrapped beverage must not be null");
 		}
 		this.wrapped = wrapped;
 	}
+
+	// What this layer adds on top of the wrapped beverage. A decorator that only
+	// implements cost() can only say so for the current prices, since cost()
+	// always uses them; any other table is refused rather than mixed with it.
+	protected int addOnCost(PriceTable prices) {
+		if (prices != PriceTable.current()) {
+			throw new UnsupportedOperationException(getClass().getSimpleName()
+					+ " only implements cost() and cannot be priced at " + prices);
+		}
+		return Math.subtractExact(cost(), wrapped.cost());
+	}
+
+	boolean pricesOwnLayer() {
+		return PRICES_OWN_LAYER.get(getClass());
+	}
+
 }
 
 
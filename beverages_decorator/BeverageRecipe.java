@@ -0,0 +1,117 @@
+package beverages_decorator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A decorator chain flattened into its base beverage and add-ons. Compiling
+ * walks the chain with a loop, so deep customizations cannot overflow the
+ * stack. The total is computed once per price table and cached, so cost()
+ * is O(1) until prices change.
+ *
+ * Only layers that price themselves from a PriceTable are flattened. A custom
+ * decorator that only implements cost() stops the walk: it and everything it
+ * wraps become the base, priced with one cost() call at the current prices.
+ */
+public final class BeverageRecipe extends Beverage {
+
+	private static final class Priced {
+		final PriceTable prices;
+		final int cost;
+
+		Priced(PriceTable prices, int cost) {
+			this.prices = prices;
+			this.cost = cost;
+		}
+	}
+
+	private final Beverage base;
+	private final List<Class<? extends BeverageDecorator>> addOns;
+	// Innermost first; kept so add-on prices can be re-read when prices change
+	private final BeverageDecorator[] layers;
+	private volatile Priced priced;
+
+	private BeverageRecipe(Beverage base, List<Class<? extends BeverageDecorator>> addOns, BeverageDecorator[] layers) {
+		this.base = base;
+		this.addOns = Collections.unmodifiableList(addOns);
+		this.layers = layers;
+	}
+
+	public static BeverageRecipe compile(Beverage beverage) {
+		if (beverage == null) {
+			throw new IllegalArgumentException("Beverage must not be null");
+		}
+		if (beverage instanceof BeverageRecipe) {
+			return (BeverageRecipe) beverage;
+		}
+
+		// Outermost layer first. A decorator that only implements cost() ends the walk:
+		// it and everything below it become the base, priced with a single cost() call.
+		List<BeverageDecorator> outerFirst = new ArrayList<>();
+		Beverage current = beverage;
+		while (current instanceof BeverageDecorator && ((BeverageDecorator) current).pricesOwnLayer()) {
+			BeverageDecorator layer = (BeverageDecorator) current;
+			outerFirst.add(layer);
+			current = layer.wrapped;
+		}
+
+		Beverage base = current;
+		List<Class<? extends BeverageDecorator>> addOns = new ArrayList<>(outerFirst.size());
+		BeverageDecorator[] layers;
+		int next = 0;
+		if (current instanceof BeverageRecipe) {
+			// Decorators stacked on a recipe extend it rather than nesting it
+			BeverageRecipe inner = (BeverageRecipe) current;
+			base = inner.base;
+			addOns.addAll(inner.addOns);
+			layers = new BeverageDecorator[inner.layers.length + outerFirst.size()];
+			System.arraycopy(inner.layers, 0, layers, 0, inner.layers.length);
+			next = inner.layers.length;
+		} else {
+			layers = new BeverageDecorator[outerFirst.size()];
+		}
+		for (int i = outerFirst.size() - 1; i >= 0; i--) {
+			BeverageDecorator layer = outerFirst.get(i);
+			addOns.add(layer.getClass());
+			layers[next++] = layer;
+		}
+		return new BeverageRecipe(base, addOns, layers);
+	}
+
+	@Override
+	public int cost() {
+		return cost(PriceTable.current());
+	}
+
+	@Override
+	public int cost(PriceTable prices) {
+		Priced p = priced;
+		if (p != null && p.prices == prices) {
+			return p.cost;
+		}
+		// A base that only implements cost() follows the current prices, so its total cannot be kept per table
+		boolean usesTable = base.usesPriceTable();
+		int total = usesTable ? base.cost(prices) : base.cost();
+		for (BeverageDecorator layer : layers) {
+			total = Math.addExact(total, layer.addOnCost(prices));
+		}
+		if (usesTable) {
+			priced = new Priced(prices, total);
+		}
+		return total;
+	}
+
+	public Beverage getBase() {
+		return base;
+	}
+
+	// Add-on decorator types, innermost first
+	public List<Class<? extends BeverageDecorator>> getAddOns() {
+		return addOns;
+	}
+
+	public int getAddOnCost(int index, PriceTable prices) {
+		return layers[index].addOnCost(prices);
+	}
+}
@@ -0,0 +1,64 @@
+package beverages_decorator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares pricing a day of orders by calling cost() on decorator chains
+ * with pricing the same orders in columns through BulkPricingEngine, and
+ * checks that both give identical prices.
+ *
+ * Usage: BulkPricingBenchmark [orders]
+ */
+public class BulkPricingBenchmark {
+
+	private static final int ROUNDS = 5;
+
+	public static void main(String[] args) {
+		int n = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+		Random random = new Random(42);
+		List<Beverage> graphs = new ArrayList<>(n);
+		BulkPricingEngine.Columns columns = new BulkPricingEngine.Columns(n);
+		BeverageConfig.Base[] bases = BeverageConfig.Base.values();
+		for (int i = 0; i < n; i++) {
+			BeverageConfig config = BeverageConfig.of(bases[random.nextInt(bases.length)],
+					random.nextInt(3), random.nextInt(3), random.nextInt(4));
+			// Fresh chains, as each order builds today
+			graphs.add(config.toBeverage());
+			columns.set(i, config);
+		}
+
+		BulkPricingEngine engine = new BulkPricingEngine();
+		int[] prices = new int[n];
+		long graphBest = Long.MAX_VALUE;
+		long bulkBest = Long.MAX_VALUE;
+		long graphTotal = 0;
+		long bulkTotal = 0;
+		for (int round = 0; round < ROUNDS; round++) {
+			long start = System.nanoTime();
+			graphTotal = 0;
+			for (Beverage b : graphs) {
+				graphTotal += b.cost();
+			}
+			graphBest = Math.min(graphBest, System.nanoTime() - start);
+
+			start = System.nanoTime();
+			bulkTotal = engine.priceAll(columns, prices);
+			bulkBest = Math.min(bulkBest, System.nanoTime() - start);
+		}
+
+		for (int i = 0; i < n; i++) {
+			if (prices[i] != graphs.get(i).cost()) {
+				throw new IllegalStateException("Price mismatch at order " + i + ": " + prices[i] + " != " + graphs.get(i).cost());
+			}
+		}
+		if (graphTotal != bulkTotal) {
+			throw new IllegalStateException("Total mismatch: " + graphTotal + " != " + bulkTotal);
+		}
+
+		System.out.println("Orders: " + n + ", total " + bulkTotal + " (identical on both paths)");
+		System.out.printf("Object graphs: %.1f M orders/s%n", n / (graphBest / 1e3));
+		System.out.printf("Bulk engine:   %.1f M orders/s%n", n / (bulkBest / 1e3));
+	}
+}
@@ -0,0 +1,116 @@
+package beverages_decorator;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Prices many orders at once from columns of primitives instead of object
+ * graphs, using the prices of one PriceTable snapshot. Order i is bases[i] (a BeverageConfig.Base ordinal) plus
+ * milk[i], mocha[i] and sugar[i] add-ons. Each price is summed in long and
+ * checked to fit an int, so results agree exactly with cost(), and a price
+ * that would overflow throws ArithmeticException just as cost() does.
+ *
+ * The columns are cut into fixed-size chunks priced in parallel. The inner
+ * loop is a straight-line multiply-add over arrays with no calls and one
+ * never-taken overflow branch, which the JIT can unroll.
+ */
+public final class BulkPricingEngine {
+
+	private static final int CHUNK = 1 << 16;
+
+	private final int[] basePrices;
+	private final int milkPrice;
+	private final int mochaPrice;
+	private final int sugarPrice;
+
+	public BulkPricingEngine() {
+		this(PriceTable.current());
+	}
+
+	// Prices every run with this snapshot, even if newer prices are published meanwhile
+	public BulkPricingEngine(PriceTable prices) {
+		if (prices == null) {
+			throw new IllegalArgumentException("Prices must not be null");
+		}
+		BeverageConfig.Base[] bases = BeverageConfig.Base.values();
+		this.basePrices = new int[bases.length];
+		for (BeverageConfig.Base base : bases) {
+			basePrices[base.ordinal()] = prices.basePrice(base);
+		}
+		this.milkPrice = prices.addOnPrice(BeverageConfig.AddOn.MILK);
+		this.mochaPrice = prices.addOnPrice(BeverageConfig.AddOn.MOCHA);
+		this.sugarPrice = prices.addOnPrice(BeverageConfig.AddOn.SUGAR);
+	}
+
+	// Fills prices[i] for every order and returns the grand total
+	public long priceAll(byte[] bases, int[] milk, int[] mocha, int[] sugar, int[] prices) {
+		int n = bases.length;
+		if (milk.length != n || mocha.length != n || sugar.length != n || prices.length != n) {
+			throw new IllegalArgumentException("All columns must have the same length");
+		}
+		int chunks = (n + CHUNK - 1) / CHUNK;
+		return IntStream.range(0, chunks).parallel()
+				.mapToLong(c -> priceRange(bases, milk, mocha, sugar, prices, c * CHUNK, Math.min(n, (c + 1) * CHUNK)))
+				.sum();
+	}
+
+	public long priceAll(byte[] bases, int[] milk, int[] mocha, int[] sugar) {
+		return priceAll(bases, milk, mocha, sugar, new int[bases.length]);
+	}
+
+	public long priceAll(Columns orders, int[] prices) {
+		return priceAll(orders.bases, orders.milk, orders.mocha, orders.sugar, prices);
+	}
+
+	private long priceRange(byte[] bases, int[] milk, int[] mocha, int[] sugar, int[] prices, int from, int to) {
+		int[] basePrices = this.basePrices;
+		int m = milkPrice;
+		int mo = mochaPrice;
+		int s = sugarPrice;
+		long total = 0;
+		for (int i = from; i < to; i++) {
+			long price = (long) basePrices[bases[i]] + (long) milk[i] * m + (long) mocha[i] * mo + (long) sugar[i] * s;
+			if (price != (int) price) {
+				throw new ArithmeticException("Price of order " + i + " overflows int: " + price);
+			}
+			prices[i] = (int) price;
+			total += price;
+		}
+		return total;
+	}
+
+	// Columnar copy of a list of orders, e.g. as loaded for analytics
+	public static final class Columns {
+
+		public final byte[] bases;
+		public final int[] milk;
+		public final int[] mocha;
+		public final int[] sugar;
+
+		public Columns(int size) {
+			this.bases = new byte[size];
+			this.milk = new int[size];
+			this.mocha = new int[size];
+			this.sugar = new int[size];
+		}
+
+		public static Columns of(List<? extends Beverage> orders) {
+			Columns columns = new Columns(orders.size());
+			for (int i = 0; i < orders.size(); i++) {
+				columns.set(i, BeverageConfig.from(orders.get(i)));
+			}
+			return columns;
+		}
+
+		public void set(int i, BeverageConfig config) {
+			bases[i] = (byte) config.getBase().ordinal();
+			milk[i] = config.count(BeverageConfig.AddOn.MILK);
+			mocha[i] = config.count(BeverageConfig.AddOn.MOCHA);
+			sugar[i] = config.count(BeverageConfig.AddOn.SUGAR);
+		}
+
+		public int size() {
+			return bases.length;
+		}
+	}
+}
@@ -4,7 +4,12 @@ public class Cappuccino extends Beverage{
 
 	@Override
 	public int cost() {
-		return 10;
+		return cost(PriceTable.current());
+	}
+
+	@Override
+	public int cost(PriceTable prices) {
+		return prices.basePrice(BeverageConfig.Base.CAPPUCCINO);
 	}
 
 }
\ No newline at end of file
@@ -1,5 +1,8 @@
 package beverages_decorator;
 
+import java.util.EnumSet;
+import java.util.List;
+
 public class Client {
 
 	public static void main(String[] args) {
@@ -22,6 +25,40 @@ public class Client {
 		Beverage fullLoaded = new SugarDecorator(new MochaDecorator(new MilkDecorator(new Cappuccino())));
 		System.out.println("Cappuccino + Milk + Mocha + Sugar cost:");
 		System.out.println(fullLoaded.cost());
+
+		// Compile once, then price as often as checkout needs without walking the chain
+		BeverageRecipe recipe = BeverageRecipe.compile(fullLoaded);
+		System.out.println("Compiled recipe cost:");
+		System.out.println(recipe.cost());
+
+		Beverage deep = new Cappuccino();
+		for (int i = 0; i < 100_000; i++) {
+			deep = new SugarDecorator(deep);
+		}
+		System.out.println("Cappuccino + 100000 Sugar cost (compiled):");
+		System.out.println(BeverageRecipe.compile(deep).cost());
+
+		// Identical drinks share one interned configuration
+		BeverageConfig order1 = BeverageConfig.from(fullLoaded);
+		BeverageConfig order2 = BeverageConfig.of(BeverageConfig.Base.CAPPUCCINO, 1, 1, 1);
+		System.out.println("Interned config " + order1 + " cost:");
+		System.out.println(order1.cost() + (order1 == order2 ? " (same instance)" : ""));
+
+		// An order in progress keeps the prices it started with when new prices are published
+		PriceTable atOrderStart = PriceTable.current();
+		PriceTable.publish(prices -> prices.withAddOnPrice(BeverageConfig.AddOn.MOCHA, 5));
+		System.out.println("Cappuccino + Milk + Mocha + Sugar cost at order start / after mocha price change:");
+		System.out.println(fullLoaded.cost(atOrderStart) + " / " + fullLoaded.cost());
+
+		PromotionEngine promos = new PromotionEngine(List.of(
+				Promotion.freeAddOn("Mocha free with Latte", BeverageConfig.Base.LATTE, BeverageConfig.AddOn.MOCHA),
+				Promotion.buyGetFree("Buy 2 get 1", EnumSet.allOf(BeverageConfig.Base.class), 2, 1)));
+		List<BeverageConfig> order = List.of(
+				BeverageConfig.from(latteWithMocha),
+				BeverageConfig.from(cappuccinoWithMilk),
+				BeverageConfig.of(BeverageConfig.Base.CAPPUCCINO, 0, 0, 0));
+		System.out.println("Order with promotions:");
+		System.out.println(promos.apply(order));
 	}
 
 }
\ No newline at end of file
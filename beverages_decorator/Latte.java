@@ -4,7 +4,12 @@ public class Latte extends Beverage {
 
 	@Override
 	public int cost() {
-		return 20;
+		return cost(PriceTable.current());
+	}
+
+	@Override
+	public int cost(PriceTable prices) {
+		return prices.basePrice(BeverageConfig.Base.LATTE);
 	}
 
 }
\ No newline at end of file
@@ -2,10 +2,12 @@ package beverages_decorator;
 
 public class MilkDecorator extends BeverageDecorator {
 
-	private final int milkCost;
+	// Null means the price comes from the PriceTable
+	private final Integer milkCost;
 
 	public MilkDecorator(Beverage wrapped) {
-		this(wrapped, 3);
+		super(wrapped);
+		this.milkCost = null;
 	}
 
 	public MilkDecorator(Beverage wrapped, int milkCost) {
@@ -15,7 +17,17 @@ public class MilkDecorator extends BeverageDecorator {
 
 	@Override
 	public int cost() {
-		return wrapped.cost() + milkCost;
+		return cost(PriceTable.current());
+	}
+
+	@Override
+	public int cost(PriceTable prices) {
+		return wrapped.cost(prices) + addOnCost(prices);
+	}
+
+	@Override
+	protected int addOnCost(PriceTable prices) {
+		return milkCost != null ? milkCost : prices.addOnPrice(BeverageConfig.AddOn.MILK);
 	}
 }
 
@@ -2,10 +2,12 @@ package beverages_decorator;
 
 public class MochaDecorator extends BeverageDecorator {
 
-	private final int mochaCost;
+	// Null means the price comes from the PriceTable
+	private final Integer mochaCost;
 
 	public MochaDecorator(Beverage wrapped) {
-		this(wrapped, 4);
+		super(wrapped);
+		this.mochaCost = null;
 	}
 
 	public MochaDecorator(Beverage wrapped, int mochaCost) {
@@ -15,7 +17,17 @@ public class MochaDecorator extends BeverageDecorator {
 
 	@Override
 	public int cost() {
-		return wrapped.cost() + mochaCost;
+		return cost(PriceTable.current());
+	}
+
+	@Override
+	public int cost(PriceTable prices) {
+		return wrapped.cost(prices) + addOnCost(prices);
+	}
+
+	@Override
+	protected int addOnCost(PriceTable prices) {
+		return mochaCost != null ? mochaCost : prices.addOnPrice(BeverageConfig.AddOn.MOCHA);
 	}
 }
 
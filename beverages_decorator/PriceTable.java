@@ -0,0 +1,79 @@
+package beverages_decorator;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+/**
+ * Immutable snapshot of every base and add-on price, with a version number.
+ *
+ * The current snapshot is published through a single AtomicReference, so
+ * reading prices is one volatile read: wait-free, never blocked by a price
+ * change. A change copies the snapshot, edits the copy and swaps it in. An
+ * order that should keep the prices it started with holds on to the
+ * snapshot it read and prices itself with cost(prices).
+ */
+public final class PriceTable {
+
+	// Indexed by BeverageConfig.Base and BeverageConfig.AddOn ordinals
+	private static final PriceTable DEFAULT = new PriceTable(1,
+			new int[] { 10, 20 },
+			new int[] { 3, 4, 1 });
+
+	private static final AtomicReference<PriceTable> CURRENT = new AtomicReference<>(DEFAULT);
+
+	private final long version;
+	private final int[] basePrices;
+	private final int[] addOnPrices;
+
+	private PriceTable(long version, int[] basePrices, int[] addOnPrices) {
+		this.version = version;
+		this.basePrices = basePrices;
+		this.addOnPrices = addOnPrices;
+	}
+
+	public static PriceTable current() {
+		return CURRENT.get();
+	}
+
+	// Applies a change to the current prices and publishes the result as the next version
+	public static PriceTable publish(UnaryOperator<PriceTable> change) {
+		while (true) {
+			PriceTable current = CURRENT.get();
+			PriceTable changed = change.apply(current);
+			PriceTable next = new PriceTable(current.version + 1, changed.basePrices, changed.addOnPrices);
+			if (CURRENT.compareAndSet(current, next)) {
+				return next;
+			}
+		}
+	}
+
+	public long getVersion() {
+		return version;
+	}
+
+	public int basePrice(BeverageConfig.Base base) {
+		return basePrices[base.ordinal()];
+	}
+
+	public int addOnPrice(BeverageConfig.AddOn addOn) {
+		return addOnPrices[addOn.ordinal()];
+	}
+
+	public PriceTable withBasePrice(BeverageConfig.Base base, int price) {
+		int[] prices = basePrices.clone();
+		prices[base.ordinal()] = price;
+		return new PriceTable(version, prices, addOnPrices);
+	}
+
+	public PriceTable withAddOnPrice(BeverageConfig.AddOn addOn, int price) {
+		int[] prices = addOnPrices.clone();
+		prices[addOn.ordinal()] = price;
+		return new PriceTable(version, basePrices, prices);
+	}
+
+	@Override
+	public String toString() {
+		return "v" + version + " bases=" + Arrays.toString(basePrices) + " add-ons=" + Arrays.toString(addOnPrices);
+	}
+}
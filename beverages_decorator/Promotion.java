@@ -0,0 +1,93 @@
+package beverages_decorator;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * One promotion rule: which drinks it applies to and what it gives.
+ * Rules are only descriptions; PromotionEngine compiles a set of them.
+ */
+public final class Promotion {
+
+	enum Kind {
+		FREE_ADD_ON,
+		PERCENT_OFF,
+		BUY_N_GET_M
+	}
+
+	final String name;
+	final Kind kind;
+	final Set<BeverageConfig.Base> bases;
+	final int[] minCounts;
+	final BeverageConfig.AddOn addOn;
+	final int amount;
+	final int buy;
+	final int free;
+
+	private Promotion(String name, Kind kind, Set<BeverageConfig.Base> bases, int[] minCounts,
+			BeverageConfig.AddOn addOn, int amount, int buy, int free) {
+		if (name == null) {
+			throw new IllegalArgumentException("Name must not be null");
+		}
+		if (bases.isEmpty()) {
+			throw new IllegalArgumentException("Promotion must apply to at least one base");
+		}
+		this.name = name;
+		this.kind = kind;
+		this.bases = bases;
+		this.minCounts = minCounts;
+		this.addOn = addOn;
+		this.amount = amount;
+		this.buy = buy;
+		this.free = free;
+	}
+
+	// e.g. "Mocha free with Latte": one of the add-on is free on each drink with that base
+	public static Promotion freeAddOn(String name, BeverageConfig.Base base, BeverageConfig.AddOn addOn) {
+		if (base == null || addOn == null) {
+			throw new IllegalArgumentException("Base and add-on must not be null");
+		}
+		int[] minCounts = new int[BeverageConfig.AddOn.values().length];
+		minCounts[addOn.ordinal()] = 1;
+		return new Promotion(name, Kind.FREE_ADD_ON, EnumSet.of(base), minCounts, addOn, 1, 0, 0);
+	}
+
+	// Percentage off every drink with one of the bases
+	public static Promotion percentOff(String name, Set<BeverageConfig.Base> bases, int percent) {
+		if (percent < 0 || percent > 100) {
+			throw new IllegalArgumentException("Percent must be between 0 and 100");
+		}
+		return new Promotion(name, Kind.PERCENT_OFF, EnumSet.copyOf(bases), new int[BeverageConfig.AddOn.values().length],
+				null, percent, 0, 0);
+	}
+
+	// e.g. "buy 2 get 1": in every group of buy + free matching drinks, the cheapest free ones cost nothing
+	public static Promotion buyGetFree(String name, Set<BeverageConfig.Base> bases, int buy, int free) {
+		if (buy < 1 || free < 1) {
+			throw new IllegalArgumentException("Buy and free must be positive");
+		}
+		return new Promotion(name, Kind.BUY_N_GET_M, EnumSet.copyOf(bases), new int[BeverageConfig.AddOn.values().length],
+				null, 0, buy, free);
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	boolean matches(BeverageConfig drink) {
+		if (!bases.contains(drink.getBase())) {
+			return false;
+		}
+		for (BeverageConfig.AddOn a : BeverageConfig.AddOn.values()) {
+			if (drink.count(a) < minCounts[a.ordinal()]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+}
@@ -0,0 +1,205 @@
+package beverages_decorator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A set of promotions compiled for fast evaluation over BeverageConfig drinks.
+ *
+ * Rules are numbered, and for each distinct drink configuration the engine
+ * remembers a bitmask of the rules it matches, in a table indexed by the
+ * configuration's interning id. Since there are only a few hundred distinct
+ * drinks, matching soon becomes one array read per drink, and only the
+ * rules whose bits are set are looked at.
+ *
+ * Per-drink rules (free add-on, percent off) apply first, in rule order;
+ * buy-N-get-M rules then apply to the discounted prices. No drink goes
+ * below zero.
+ */
+public final class PromotionEngine {
+
+	private static final int MAX_RULES = 63;
+	// Set on every computed entry, so 0 means "not computed yet"
+	private static final long KNOWN = 1L << MAX_RULES;
+
+	public static final class Result {
+
+		private final long subtotal;
+		private final long discount;
+		private final List<String> applied;
+
+		Result(long subtotal, long discount, List<String> applied) {
+			this.subtotal = subtotal;
+			this.discount = discount;
+			this.applied = Collections.unmodifiableList(applied);
+		}
+
+		public long getSubtotal() {
+			return subtotal;
+		}
+
+		public long getDiscount() {
+			return discount;
+		}
+
+		public long getTotal() {
+			return subtotal - discount;
+		}
+
+		public List<String> getApplied() {
+			return applied;
+		}
+
+		@Override
+		public String toString() {
+			return "subtotal=" + subtotal + " discount=" + discount + " total=" + getTotal() + " promos=" + applied;
+		}
+	}
+
+	private final Promotion[] rules;
+	private final long drinkRules;
+	private final long groupRules;
+	private volatile AtomicLongArray matches = new AtomicLongArray(256);
+
+	public PromotionEngine(List<Promotion> promotions) {
+		if (promotions == null) {
+			throw new IllegalArgumentException("Promotions must not be null");
+		}
+		if (promotions.size() > MAX_RULES) {
+			throw new IllegalArgumentException("At most " + MAX_RULES + " promotions per engine");
+		}
+		this.rules = promotions.toArray(new Promotion[0]);
+		long perDrink = 0;
+		long perGroup = 0;
+		for (int r = 0; r < rules.length; r++) {
+			if (rules[r] == null) {
+				throw new IllegalArgumentException("Promotion must not be null");
+			}
+			if (rules[r].kind == Promotion.Kind.BUY_N_GET_M) {
+				perGroup |= 1L << r;
+			} else {
+				perDrink |= 1L << r;
+			}
+		}
+		this.drinkRules = perDrink;
+		this.groupRules = perGroup;
+	}
+
+	public Result apply(List<BeverageConfig> order) {
+		return apply(order, PriceTable.current());
+	}
+
+	public Result apply(List<BeverageConfig> order, PriceTable prices) {
+		int n = order.size();
+		int[] price = new int[n];
+		long[] masks = new long[n];
+		long subtotal = 0;
+		long discount = 0;
+		long used = 0;
+
+		for (int i = 0; i < n; i++) {
+			BeverageConfig drink = order.get(i);
+			int p = drink.cost(prices);
+			subtotal += p;
+			long mask = matchMask(drink);
+			masks[i] = mask;
+			for (long bits = mask & drinkRules; bits != 0; bits &= bits - 1) {
+				int r = Long.numberOfTrailingZeros(bits);
+				Promotion rule = rules[r];
+				int off = rule.kind == Promotion.Kind.FREE_ADD_ON
+						? prices.addOnPrice(rule.addOn) * rule.amount
+						: (int) ((long) p * rule.amount / 100);
+				off = Math.min(off, p);
+				if (off > 0) {
+					p -= off;
+					discount += off;
+					used |= 1L << r;
+				}
+			}
+			price[i] = p;
+		}
+
+		for (long bits = groupRules; bits != 0; bits &= bits - 1) {
+			int r = Long.numberOfTrailingZeros(bits);
+			long off = applyBuyGetFree(rules[r], r, masks, price);
+			if (off > 0) {
+				discount += off;
+				used |= 1L << r;
+			}
+		}
+
+		List<String> applied = new ArrayList<>(Long.bitCount(used));
+		for (long bits = used; bits != 0; bits &= bits - 1) {
+			applied.add(rules[Long.numberOfTrailingZeros(bits)].name);
+		}
+		return new Result(subtotal, discount, applied);
+	}
+
+	// Most expensive first; in each block of buy + free drinks the last free ones cost nothing
+	private static long applyBuyGetFree(Promotion rule, int r, long[] masks, int[] price) {
+		int count = 0;
+		long[] keyed = new long[masks.length];
+		for (int i = 0; i < masks.length; i++) {
+			if ((masks[i] & (1L << r)) != 0) {
+				// Price in the high bits so sorting orders by price, index in the low bits to find the drink
+				keyed[count++] = (long) price[i] << 32 | i;
+			}
+		}
+		int block = rule.buy + rule.free;
+		if (count < block) {
+			return 0;
+		}
+		Arrays.sort(keyed, 0, count);
+		long off = 0;
+		for (int k = 0; k < count; k++) {
+			int fromTop = count - 1 - k;
+			if (fromTop % block >= rule.buy && fromTop / block < count / block) {
+				int i = (int) keyed[k];
+				off += price[i];
+				price[i] = 0;
+			}
+		}
+		return off;
+	}
+
+	long matchMask(BeverageConfig drink) {
+		AtomicLongArray table = matches;
+		int i = drink.index();
+		if (i < table.length()) {
+			long mask = table.get(i);
+			if (mask != 0) {
+				return mask;
+			}
+		}
+		long mask = KNOWN;
+		for (int r = 0; r < rules.length; r++) {
+			if (rules[r].matches(drink)) {
+				mask |= 1L << r;
+			}
+		}
+		store(i, mask);
+		return mask;
+	}
+
+	private void store(int i, long mask) {
+		AtomicLongArray table = matches;
+		if (i >= table.length()) {
+			synchronized (this) {
+				table = matches;
+				if (i >= table.length()) {
+					// An entry written to the old table meanwhile is just computed again later
+					AtomicLongArray grown = new AtomicLongArray(Math.max(table.length() * 2, i + 1));
+					for (int k = 0; k < table.length(); k++) {
+						grown.set(k, table.get(k));
+					}
+					matches = grown;
+					table = grown;
+				}
+			}
+		}
+		table.set(i, mask);
+	}
+}
@@ -2,10 +2,12 @@ package beverages_decorator;
 
 public class SugarDecorator extends BeverageDecorator {
 
-	private final int sugarCost;
+	// Null means the price comes from the PriceTable
+	private final Integer sugarCost;
 
 	public SugarDecorator(Beverage wrapped) {
-		this(wrapped, 1);
+		super(wrapped);
+		this.sugarCost = null;
 	}
 
 	public SugarDecorator(Beverage wrapped, int sugarCost) {
@@ -15,7 +17,17 @@ public class SugarDecorator extends BeverageDecorator {
 
 	@Override
 	public int cost() {
-		return wrapped.cost() + sugarCost;
+		return cost(PriceTable.current());
+	}
+
+	@Override
+	public int cost(PriceTable prices) {
+		return wrapped.cost(prices) + addOnCost(prices);
+	}
+
+	@Override
+	protected int addOnCost(PriceTable prices) {
+		return sugarCost != null ? sugarCost : prices.addOnPrice(BeverageConfig.AddOn.SUGAR);
 	}
 }
 
@@ -0,0 +1,50 @@
+package com.example.notifications;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Sends to several notifiers as one, e.g. two decorator chains that share a
+ * base. Channels they have in common are sent to once; see {@link DeliveryPlan}.
+ */
+public class CompositeNotifier implements Notifier {
+    private final List<Notifier> members;
+    private volatile DeliveryPlan plan;
+
+    public CompositeNotifier(Notifier... members) {
+        if (members == null || members.length == 0) {
+            throw new IllegalArgumentException("At least one notifier is required");
+        }
+        for (Notifier member : members) {
+            if (member == null) {
+                throw new IllegalArgumentException("Notifier must not be null");
+            }
+        }
+        this.members = Collections.unmodifiableList(Arrays.asList(members.clone()));
+    }
+
+    public List<Notifier> getMembers() {
+        return members;
+    }
+
+    /**
+     * Gets the plan, building it on first use.
+     *
+     * @return The delivery plan
+     */
+    public DeliveryPlan getPlan() {
+        DeliveryPlan p = plan;
+        if (p == null) {
+            // Racing threads build equal plans; either one may be kept
+            p = DeliveryPlan.of(this);
+            plan = p;
+        }
+        return p;
+    }
+
+    @Override
+    public void notify(String text) {
+        getPlan().deliver(text);
+    }
+}
@@ -0,0 +1,220 @@
+package com.example.notifications;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * The distinct channels a notifier sends to, in the order it sends.
+ *
+ * Decorators and {@link CompositeNotifier}s can end up sharing a base or
+ * repeating a decorator, e.g. two chains over the same EmailNotifier. The plan
+ * keeps the first occurrence of each channel and recipient and drops the rest,
+ * so every recipient is sent one copy. A decorator's channel is its class plus
+ * {@link NotifierDecorator#getRecipient()}; any other notifier is a channel of
+ * its own, identified by the instance.
+ *
+ * Each channel also has a key, its position in the plan plus its name (e.g.
+ * "1-EmailNotifier"), which stays unique when two plain notifiers share a name
+ * and stays the same as long as the chain is built the same way.
+ *
+ * A decorator whose class overrides {@link Notifier#notify(String)}, e.g. to
+ * add an audit line, is sent through that override as a single channel, and
+ * its own chain is not unfolded into this plan. Its override then delivers
+ * its own chain, so it runs on every message whatever wraps it. Recipients
+ * inside it are no longer deduplicated against the rest of the plan.
+ *
+ * Chains are immutable, so decorators and composites build their plan once and
+ * keep it.
+ */
+public final class DeliveryPlan {
+
+    private static final ClassValue<Boolean> OVERRIDES_NOTIFY = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            try {
+                return type.getMethod("notify", String.class).getDeclaringClass() != NotifierDecorator.class;
+            } catch (NoSuchMethodException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    };
+
+    private final List<Channel> channels;
+
+    private DeliveryPlan(List<Channel> channels) {
+        this.channels = Collections.unmodifiableList(channels);
+    }
+
+    /**
+     * Builds the plan for a notifier. Walked with an explicit stack, so deep
+     * chains cannot overflow the call stack.
+     *
+     * @param notifier The chain or composite
+     * @return Its plan
+     */
+    public static DeliveryPlan of(Notifier notifier) {
+        if (notifier == null) {
+            throw new IllegalArgumentException("Notifier must not be null");
+        }
+        return build(notifier, false);
+    }
+
+    // The plan NotifierDecorator.notify delivers: its own chain unfolded, even if its class overrides notify
+    static DeliveryPlan ofOwnChain(NotifierDecorator decorator) {
+        return build(decorator, true);
+    }
+
+    private static DeliveryPlan build(Notifier notifier, boolean unfoldRoot) {
+        List<Channel> channels = new ArrayList<>();
+        Set<Object> seen = new HashSet<>();
+        Deque<Notifier> pending = new ArrayDeque<>();
+        pending.push(notifier);
+        while (!pending.isEmpty()) {
+            Notifier current = pending.pop();
+            if (current instanceof NotifierDecorator
+                    && (unfoldRoot && current == notifier || !overridesNotify(current))) {
+                NotifierDecorator decorator = (NotifierDecorator) current;
+                String key = decorator.getClass().getName() + " " + decorator.getRecipient();
+                if (seen.add(key)) {
+                    channels.add(new Channel(channels.size(),
+                            displayName(decorator.getClass()) + " " + decorator.getRecipient(),
+                            decorator.getClass(), decorator::send));
+                }
+                pending.push(decorator.getWrapped());
+            } else if (current instanceof CompositeNotifier) {
+                List<Notifier> members = ((CompositeNotifier) current).getMembers();
+                for (int i = members.size() - 1; i >= 0; i--) {
+                    pending.push(members.get(i));
+                }
+            } else if (current instanceof NotifierDecorator) {
+                // Its notify override delivers its own chain; see the class doc
+                NotifierDecorator decorator = (NotifierDecorator) current;
+                if (seen.add(current)) {
+                    channels.add(new Channel(channels.size(),
+                            displayName(decorator.getClass()) + " " + decorator.getRecipient(),
+                            decorator.getClass(), decorator::notify));
+                }
+            } else if (seen.add(current)) {
+                channels.add(new Channel(channels.size(), displayName(current.getClass()), current.getClass(),
+                        current::notify));
+            }
+        }
+        return new DeliveryPlan(channels);
+    }
+
+    // The plan a chain or composite already keeps, so wrapping it elsewhere does not build another
+    static DeliveryPlan cachedFor(Notifier notifier) {
+        if (notifier instanceof NotifierDecorator && !overridesNotify(notifier)) {
+            return ((NotifierDecorator) notifier).getPlan();
+        }
+        if (notifier instanceof CompositeNotifier) {
+            return ((CompositeNotifier) notifier).getPlan();
+        }
+        return of(notifier);
+    }
+
+    /**
+     * Sends the message on each channel in turn. A channel that fails does not
+     * stop the rest; the first failure is rethrown afterwards with any others
+     * attached as suppressed.
+     *
+     * @param text The message
+     */
+    public void deliver(String text) {
+        RuntimeException failure = null;
+        for (Channel channel : channels) {
+            try {
+                channel.send.accept(text);
+            } catch (RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Gets a description of each channel, in delivery order.
+     *
+     * @return Channel descriptions
+     */
+    public List<String> getChannels() {
+        List<String> names = new ArrayList<>(channels.size());
+        for (Channel channel : channels) {
+            names.add(channel.name);
+        }
+        return names;
+    }
+
+    List<Channel> channels() {
+        return channels;
+    }
+
+    @Override
+    public String toString() {
+        return getChannels().toString();
+    }
+
+    static boolean overridesNotify(Notifier notifier) {
+        return OVERRIDES_NOTIFY.get(notifier.getClass());
+    }
+
+    // Anonymous and lambda classes are named after what they extend
+    private static String displayName(Class<?> type) {
+        while (type.isAnonymousClass() || type.isSynthetic()) {
+            type = type.getSuperclass() != Object.class || type.getInterfaces().length == 0
+                    ? type.getSuperclass() : type.getInterfaces()[0];
+        }
+        return type.getSimpleName();
+    }
+
+    static final class Channel {
+        final String name;
+        // Unique within the plan and stable across restarts, e.g. for files kept per channel
+        final String key;
+        final Class<? extends Notifier> type;
+        final Consumer<String> send;
+
+        Channel(int position, String name, Class<? extends Notifier> type, Consumer<String> send) {
+            this.name = name;
+            this.key = position + "-" + name;
+            this.type = type;
+            this.send = send;
+        }
+
+        /**
+         * Finds the setting for this channel among settings keyed by notifier
+         * type; a subclass picks up its superclass's setting.
+         */
+        <V> V lookup(Map<Class<? extends Notifier>, V> byType) {
+            for (Map.Entry<Class<? extends Notifier>, V> entry : byType.entrySet()) {
+                if (entry.getKey().isAssignableFrom(type)) {
+                    return entry.getValue();
+                }
+            }
+            return null;
+        }
+
+        boolean isAny(Collection<Class<? extends Notifier>> types) {
+            for (Class<? extends Notifier> t : types) {
+                if (t.isAssignableFrom(type)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
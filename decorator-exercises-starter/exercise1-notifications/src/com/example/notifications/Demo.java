@@ -1,11 +1,18 @@
 package com.example.notifications;
 
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Starter demo that uses only the existing Email notifier.
  * TODOs guide you to add decorators and compose them.
  */
 public class Demo {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws InterruptedException {
         Notifier base = new EmailNotifier("user@example.com");
 
         // Baseline behavior (already works)
@@ -38,5 +45,47 @@ public class Demo {
         // d) Email + WhatsApp + Slack
         Notifier full = new SlackDecorator(new WhatsAppDecorator(base, "user_wa"), "deployments");
         full.notify("Deployment completed 🚀");
+
+        // Both chains share the email base and the SMS appears twice; each recipient still gets one copy
+        Notifier combined = new CompositeNotifier(new SmsDecorator(emailAndSms, "+91-99999-11111"), emailAndWhatsApp);
+        combined.notify("Release notes published 📝");
+
+        // Templates are parsed once; each message only fills in the values
+        NotificationTemplate deployed = NotificationTemplate.compile("Deploy of {service} finished in {seconds}s");
+        deployed.notify(emailAndSlack, "checkout", 42);
+
+        // Alert storm: SMS and email get one digest each; SMS still sends urgent messages straight away
+        DigestNotifier digest = new DigestNotifier(emailAndSms, Duration.ofMillis(200), 50, Set.of(SmsDecorator.class));
+        for (int i = 1; i <= 5; i++) {
+            digest.notify("CPU high on node-" + i);
+        }
+        digest.notifyUrgent("Database down ❗");
+        digest.close();
+        System.out.println("Digest: " + digest.getReceived() + " messages, " + digest.getDelivered() + " sends, " + digest.getFailed() + " failed");
+
+        // Durable: notify() only appends to a local log; a restart resumes where each channel left off
+        Path outboxDir = Paths.get(System.getProperty("java.io.tmpdir"), "notifications-outbox");
+        try (NotificationOutbox outbox = new NotificationOutbox(emailAndSlack, outboxDir)) {
+            outbox.notify("Nightly backup finished 💾");
+            outbox.awaitDelivered(Duration.ofSeconds(5));
+            System.out.println("Outbox backlog: " + outbox.getBacklog());
+        }
+
+        // e) Same chain, every channel sent at once; notify() returns straight away
+        try (NotificationDispatcher dispatcher = new NotificationDispatcher(full)) {
+            CompletableFuture<Void> sent = dispatcher.notify("Rollout finished in parallel 🚀");
+            sent.join();
+            System.out.println("Delivered to " + dispatcher.getChannels());
+        }
+
+        // Priority lanes: SMS is held to its provider quota, and the HIGH alert overtakes the queued notices
+        Map<Class<? extends Notifier>, Double> quotas = Map.of(SmsDecorator.class, 5.0);
+        try (NotificationDispatcher dispatcher = new NotificationDispatcher(emailAndSms, 100, quotas)) {
+            for (int i = 1; i <= 8; i++) {
+                dispatcher.notify("Weekly tip #" + i, Priority.LOW);
+            }
+            dispatcher.notify("Payment service down ❗", Priority.HIGH).join();
+            dispatcher.getLaneStats().forEach(System.out::println);
+        }
     }
 }
@@ -0,0 +1,249 @@
+package com.example.notifications;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.example.notifications.DeliveryPlan.Channel;
+
+/**
+ * Coalesces messages into digests, per channel, so a burst of alerts costs one
+ * provider call per channel instead of one per message.
+ *
+ * The first message a channel receives opens a window; everything that arrives
+ * before it closes, up to {@code maxMessages}, goes out as a single digest.
+ * Reaching the cap sends the digest early. A digest of one message is sent as
+ * the message itself.
+ *
+ * {@link #notifyUrgent(String)} skips the wait on channels whose notifier type
+ * is listed as urgent: anything already buffered there is sent first, then the
+ * urgent message on its own. Other channels treat it like any other message.
+ *
+ * Digests are sent from one background thread, which keeps each channel's
+ * messages in order; callers only buffer. A digest that fails is reported and
+ * counted in {@link #getFailed()}; the other channels carry on.
+ */
+public class DigestNotifier implements Notifier, AutoCloseable {
+
+    private final List<Buffer> buffers;
+    private final long windowNanos;
+    private final int maxMessages;
+    private final ScheduledExecutorService sender;
+    private final LongAdder received = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    public DigestNotifier(Notifier chain, Duration window, int maxMessages) {
+        this(chain, window, maxMessages, Set.of());
+    }
+
+    /**
+     * @param chain The chain whose channels to batch
+     * @param window Longest a message waits for others to join its digest
+     * @param maxMessages Most messages in one digest
+     * @param urgentChannels Notifier types (e.g. SmsDecorator.class) that send urgent messages at once
+     */
+    public DigestNotifier(Notifier chain, Duration window, int maxMessages,
+                          Set<Class<? extends Notifier>> urgentChannels) {
+        if (chain == null || window == null || urgentChannels == null) {
+            throw new IllegalArgumentException("chain, window and urgentChannels must not be null");
+        }
+        if (window.isNegative() || window.isZero()) {
+            throw new IllegalArgumentException("window must be positive");
+        }
+        if (maxMessages < 1) {
+            throw new IllegalArgumentException("maxMessages must be positive");
+        }
+        this.windowNanos = window.toNanos();
+        this.maxMessages = maxMessages;
+        this.sender = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "notify-digest");
+            thread.setDaemon(true);
+            return thread;
+        });
+        List<Buffer> list = new ArrayList<>();
+        for (Channel channel : DeliveryPlan.cachedFor(chain).channels()) {
+            list.add(new Buffer(channel, channel.isAny(urgentChannels)));
+        }
+        this.buffers = Collections.unmodifiableList(list);
+    }
+
+    /**
+     * @throws IllegalStateException if this notifier is closed
+     */
+    @Override
+    public void notify(String text) {
+        ensureOpen();
+        received.increment();
+        for (Buffer buffer : buffers) {
+            buffer.add(text);
+        }
+    }
+
+    /**
+     * Sends at once on urgent channels and batches on the rest.
+     *
+     * @param text The message
+     * @throws IllegalStateException if this notifier is closed
+     */
+    public void notifyUrgent(String text) {
+        ensureOpen();
+        received.increment();
+        for (Buffer buffer : buffers) {
+            if (buffer.urgent) {
+                buffer.sendNow(text);
+            } else {
+                buffer.add(text);
+            }
+        }
+    }
+
+    /**
+     * Sends every buffered digest without waiting for its window to close.
+     *
+     * @throws IllegalStateException if this notifier is closed
+     */
+    public void flush() {
+        ensureOpen();
+        for (Buffer buffer : buffers) {
+            execute(buffer::drain);
+        }
+    }
+
+    /**
+     * Gets how many messages were notified.
+     *
+     * @return Messages received
+     */
+    public long getReceived() {
+        return received.sum();
+    }
+
+    /**
+     * Gets how many sends were made across all channels; with batching this
+     * stays far below received times channels.
+     *
+     * @return Provider calls made
+     */
+    public long getDelivered() {
+        return delivered.sum();
+    }
+
+    /**
+     * Gets how many of those sends failed. Failed digests are not retried.
+     *
+     * @return Provider calls that threw
+     */
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    /**
+     * Sends what is still buffered, waits for it, and stops the background thread.
+     */
+    @Override
+    public synchronized void close() {
+        if (sender.isShutdown()) {
+            return;
+        }
+        flush();
+        sender.shutdown();
+        try {
+            sender.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void ensureOpen() {
+        if (sender.isShutdown()) {
+            throw new IllegalStateException("DigestNotifier is closed");
+        }
+    }
+
+    // Closing between ensureOpen() and here surfaces the same way
+    private void execute(Runnable task) {
+        try {
+            sender.execute(task);
+        } catch (RejectedExecutionException e) {
+            throw new IllegalStateException("DigestNotifier is closed", e);
+        }
+    }
+
+    static String digest(List<String> messages) {
+        if (messages.size() == 1) {
+            return messages.get(0);
+        }
+        return messages.size() + " messages: " + String.join(" | ", messages);
+    }
+
+    private final class Buffer {
+        private final Channel channel;
+        private final boolean urgent;
+        private List<String> pending = new ArrayList<>();
+
+        Buffer(Channel channel, boolean urgent) {
+            this.channel = channel;
+            this.urgent = urgent;
+        }
+
+        void add(String text) {
+            boolean first;
+            boolean full;
+            synchronized (this) {
+                pending.add(text);
+                first = pending.size() == 1;
+                full = pending.size() >= maxMessages;
+            }
+            if (full) {
+                execute(this::drain);
+            } else if (first) {
+                try {
+                    sender.schedule(this::drain, windowNanos, TimeUnit.NANOSECONDS);
+                } catch (RejectedExecutionException e) {
+                    throw new IllegalStateException("DigestNotifier is closed", e);
+                }
+            }
+        }
+
+        void sendNow(String text) {
+            execute(() -> {
+                drain();
+                send(text);
+            });
+        }
+
+        // Runs on the sender thread only. A timer left over from an early drain at worst sends the next digest sooner.
+        void drain() {
+            List<String> batch;
+            synchronized (this) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = pending;
+                pending = new ArrayList<>();
+            }
+            for (int from = 0; from < batch.size(); from += maxMessages) {
+                send(digest(batch.subList(from, Math.min(batch.size(), from + maxMessages))));
+            }
+        }
+
+        private void send(String text) {
+            delivered.increment();
+            try {
+                channel.send.accept(text);
+            } catch (RuntimeException e) {
+                // Nobody is waiting on this thread; count, report and keep the other channels going
+                failed.increment();
+                System.err.println("Digest to " + channel.name + " failed: " + e);
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.notifications;
+
+import java.time.Duration;
+
+/**
+ * Point-in-time metrics for one priority lane of one channel.
+ */
+public final class LaneStats {
+    private final String channel;
+    private final Priority priority;
+    private final int depth;
+    private final long sent;
+    private final long totalWaitNanos;
+    private final long maxWaitNanos;
+
+    LaneStats(String channel, Priority priority, int depth, long sent, long totalWaitNanos, long maxWaitNanos) {
+        this.channel = channel;
+        this.priority = priority;
+        this.depth = depth;
+        this.sent = sent;
+        this.totalWaitNanos = totalWaitNanos;
+        this.maxWaitNanos = maxWaitNanos;
+    }
+
+    public String getChannel() {
+        return channel;
+    }
+
+    public Priority getPriority() {
+        return priority;
+    }
+
+    /**
+     * Gets the number of messages waiting in the lane.
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Gets the number of messages taken from the lane for sending.
+     */
+    public long getSent() {
+        return sent;
+    }
+
+    /**
+     * Gets the mean time from queueing to sending, including any wait for the
+     * channel's rate limit.
+     */
+    public Duration getMeanWait() {
+        return Duration.ofNanos(sent == 0 ? 0 : totalWaitNanos / sent);
+    }
+
+    public Duration getMaxWait() {
+        return Duration.ofNanos(maxWaitNanos);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s %s depth=%d sent=%d meanWait=%.1fms maxWait=%.1fms", channel, priority, depth, sent,
+                getMeanWait().toNanos() / 1e6, maxWaitNanos / 1e6);
+    }
+}
@@ -0,0 +1,295 @@
+package com.example.notifications;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+import com.example.notifications.DeliveryPlan.Channel;
+
+/**
+ * Delivers to every channel of a {@link Notifier} chain at once.
+ *
+ * Calling notify on a chain sends on each channel in turn, so the caller waits
+ * for the sum of their latencies. The dispatcher takes the chain's cached
+ * {@link DeliveryPlan}, so shared channels are sent to once, and gives each
+ * channel its own worker thread (virtual where the JVM has them);
+ * {@link #notify(String, Priority)} only enqueues and returns a future that
+ * completes once every channel has sent.
+ *
+ * Each channel has one bounded lane per {@link Priority}. When several lanes
+ * have messages waiting, the worker picks between them by smooth weighted
+ * round-robin, so HIGH gets most sends but LOW is never starved. A channel
+ * type can be given a rate limit matching its provider's quota. The permit is
+ * taken before the next message is picked, so an alert that arrives during a
+ * throttled wait still goes first. Depth and wait times are kept per lane; see
+ * {@link #getLaneStats()}.
+ *
+ * A slow channel only holds up its own lanes. When a lane is full the message
+ * is refused for that channel rather than blocking the caller.
+ */
+public class NotificationDispatcher implements AutoCloseable {
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+    private static final Priority[] PRIORITIES = Priority.values();
+
+    private final List<ChannelWorker> workers;
+    private volatile boolean closed;
+
+    public NotificationDispatcher(Notifier chain) {
+        this(chain, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    public NotificationDispatcher(Notifier chain, int queueCapacity) {
+        this(chain, queueCapacity, Map.of());
+    }
+
+    /**
+     * @param chain The notifier chain to deliver to
+     * @param queueCapacity Messages each lane of each channel may have waiting
+     * @param sendsPerSecond Rate limit by notifier type (e.g. SmsDecorator.class);
+     *                       channels not listed are not limited. Bursts of up to
+     *                       one second's worth are allowed.
+     */
+    public NotificationDispatcher(Notifier chain, int queueCapacity,
+                                  Map<Class<? extends Notifier>, Double> sendsPerSecond) {
+        if (chain == null || sendsPerSecond == null) {
+            throw new IllegalArgumentException("chain and sendsPerSecond must not be null");
+        }
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("queueCapacity must be positive");
+        }
+        List<ChannelWorker> list = new ArrayList<>();
+        for (Channel channel : DeliveryPlan.cachedFor(chain).channels()) {
+            Double rate = channel.lookup(sendsPerSecond);
+            TokenBucket bucket = rate == null ? null : new TokenBucket(rate, (int) Math.max(1, Math.ceil(rate)));
+            list.add(new ChannelWorker(channel, queueCapacity, bucket));
+        }
+        this.workers = Collections.unmodifiableList(list);
+    }
+
+    /**
+     * Queues a NORMAL priority message on every channel and returns without waiting.
+     *
+     * @param text The message
+     * @return See {@link #notify(String, Priority)}
+     */
+    public CompletableFuture<Void> notify(String text) {
+        return notify(text, Priority.NORMAL);
+    }
+
+    /**
+     * Queues a message on every channel and returns without waiting.
+     *
+     * @param text The message
+     * @param priority Which lane it goes in
+     * @return Completes when every channel has sent, or exceptionally once all
+     *         have finished if any of them failed or refused the message
+     */
+    public CompletableFuture<Void> notify(String text, Priority priority) {
+        if (priority == null) {
+            throw new IllegalArgumentException("priority must not be null");
+        }
+        if (closed) {
+            return CompletableFuture.failedFuture(new RejectedExecutionException("dispatcher is closed"));
+        }
+        CompletableFuture<?>[] sent = new CompletableFuture<?>[workers.size()];
+        for (int i = 0; i < sent.length; i++) {
+            sent[i] = workers.get(i).submit(text, priority);
+        }
+        return CompletableFuture.allOf(sent);
+    }
+
+    /**
+     * Gets the channel names in the order the chain would send on them.
+     *
+     * @return Channel names
+     */
+    public List<String> getChannels() {
+        List<String> names = new ArrayList<>(workers.size());
+        for (ChannelWorker worker : workers) {
+            names.add(worker.channel.name);
+        }
+        return names;
+    }
+
+    /**
+     * Gets depth and wait metrics for every lane of every channel.
+     *
+     * @return One entry per channel and priority, in delivery order then priority order
+     */
+    public List<LaneStats> getLaneStats() {
+        List<LaneStats> stats = new ArrayList<>(workers.size() * PRIORITIES.length);
+        for (ChannelWorker worker : workers) {
+            worker.addStats(stats);
+        }
+        return stats;
+    }
+
+    /**
+     * Stops accepting messages, lets the workers send what is already queued,
+     * and waits for them to finish.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (ChannelWorker worker : workers) {
+            worker.stop();
+        }
+        for (ChannelWorker worker : workers) {
+            try {
+                worker.thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private static final class Message {
+        final String text;
+        final CompletableFuture<Void> done;
+        final long queuedAt;
+
+        Message(String text, CompletableFuture<Void> done) {
+            this.text = text;
+            this.done = done;
+            this.queuedAt = System.nanoTime();
+        }
+    }
+
+    // The queue is guarded by the worker's lock; the counters are only written by the worker
+    private static final class Lane {
+        final ArrayDeque<Message> queue = new ArrayDeque<>();
+        int credit;
+        volatile long sent;
+        volatile long totalWaitNanos;
+        volatile long maxWaitNanos;
+    }
+
+    private static final class ChannelWorker {
+        final Channel channel;
+        final int capacity;
+        final TokenBucket bucket;
+        final Lane[] lanes = new Lane[PRIORITIES.length];
+        final Thread thread;
+        private boolean stopping;
+
+        ChannelWorker(Channel channel, int capacity, TokenBucket bucket) {
+            this.channel = channel;
+            this.capacity = capacity;
+            this.bucket = bucket;
+            for (int i = 0; i < lanes.length; i++) {
+                lanes[i] = new Lane();
+            }
+            this.thread = NotificationThreads.start("notify-" + channel.name, this::run);
+        }
+
+        CompletableFuture<Void> submit(String text, Priority priority) {
+            CompletableFuture<Void> done = new CompletableFuture<>();
+            synchronized (this) {
+                ArrayDeque<Message> queue = lanes[priority.ordinal()].queue;
+                if (stopping) {
+                    done.completeExceptionally(new RejectedExecutionException("dispatcher is closed"));
+                } else if (queue.size() >= capacity) {
+                    done.completeExceptionally(new RejectedExecutionException(
+                            channel.name + " " + priority + " lane is full"));
+                } else {
+                    queue.add(new Message(text, done));
+                    notifyAll();
+                }
+            }
+            return done;
+        }
+
+        synchronized void stop() {
+            stopping = true;
+            notifyAll();
+        }
+
+        synchronized void addStats(List<LaneStats> stats) {
+            for (Priority priority : PRIORITIES) {
+                Lane lane = lanes[priority.ordinal()];
+                stats.add(new LaneStats(channel.name, priority, lane.queue.size(), lane.sent,
+                        lane.totalWaitNanos, lane.maxWaitNanos));
+            }
+        }
+
+        private void run() {
+            try {
+                while (awaitMessage()) {
+                    if (bucket != null) {
+                        bucket.acquire();
+                    }
+                    Lane lane;
+                    Message message;
+                    synchronized (this) {
+                        lane = pickLane();
+                        message = lane.queue.poll();
+                    }
+                    long wait = System.nanoTime() - message.queuedAt;
+                    lane.sent++;
+                    lane.totalWaitNanos += wait;
+                    if (wait > lane.maxWaitNanos) {
+                        lane.maxWaitNanos = wait;
+                    }
+                    try {
+                        channel.send.accept(message.text);
+                        message.done.complete(null);
+                    } catch (RuntimeException e) {
+                        message.done.completeExceptionally(e);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                // Nothing will send what is left
+                synchronized (this) {
+                    stopping = true;
+                    for (Lane lane : lanes) {
+                        for (Message message; (message = lane.queue.poll()) != null; ) {
+                            message.done.completeExceptionally(new RejectedExecutionException("dispatcher is closed"));
+                        }
+                    }
+                }
+            }
+        }
+
+        // False once stopping with every lane empty
+        private synchronized boolean awaitMessage() throws InterruptedException {
+            while (true) {
+                for (Lane lane : lanes) {
+                    if (!lane.queue.isEmpty()) {
+                        return true;
+                    }
+                }
+                if (stopping) {
+                    return false;
+                }
+                wait();
+            }
+        }
+
+        // Smooth weighted round-robin over the lanes with messages: HIGH:NORMAL:LOW sends run 6:3:1, interleaved
+        private Lane pickLane() {
+            Lane best = null;
+            int total = 0;
+            for (Priority priority : PRIORITIES) {
+                Lane lane = lanes[priority.ordinal()];
+                if (lane.queue.isEmpty()) {
+                    continue;
+                }
+                lane.credit += priority.getWeight();
+                total += priority.getWeight();
+                if (best == null || lane.credit > best.credit) {
+                    best = lane;
+                }
+            }
+            best.credit -= total;
+            return best;
+        }
+    }
+}
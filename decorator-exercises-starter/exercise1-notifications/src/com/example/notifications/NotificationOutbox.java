@@ -0,0 +1,652 @@
+package com.example.notifications;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import com.example.notifications.DeliveryPlan.Channel;
+
+/**
+ * Durable outbox in front of a notifier chain.
+ *
+ * {@link #notify(String)} appends the message to a local log and returns; it
+ * never waits on a provider. Each channel of the chain's {@link DeliveryPlan}
+ * has a worker that sends the log in order. A failed send is retried with
+ * exponential backoff until it succeeds, and holds up only that channel.
+ *
+ * The log is a directory of segment files named outbox-NNNNNNNN.seg. Each
+ * record is {@code [length][crc32][sequence][utf-8 text]}. A segment is
+ * deleted once every channel has acknowledged everything in it. Each channel
+ * keeps its last acknowledged sequence in a small .ack file named after its
+ * key in the plan, replaced atomically. On open the segments are scanned and
+ * a torn or corrupt tail is cut off. Every channel then resumes after its last acknowledgement, so
+ * a restart loses nothing. Acknowledgements are written when a worker catches
+ * up, every 256 sends, and on close. After a crash a channel may therefore
+ * send up to 256 messages a second time.
+ *
+ * Messages are not kept in memory. Each worker reads its channel's records
+ * from the segment files, at most 64 at a time, so a provider that is down
+ * for hours grows the log on disk but not the heap.
+ *
+ * Writes reach the OS page cache before notify returns, so they survive a
+ * crash of this process. Enable {@code syncEachRecord} to also survive power
+ * loss, at the cost of a disk flush per message.
+ */
+public class NotificationOutbox implements Notifier, AutoCloseable {
+
+    public static final int DEFAULT_SEGMENT_SIZE = 16 * 1024 * 1024;
+    public static final Duration DEFAULT_INITIAL_BACKOFF = Duration.ofMillis(100);
+    public static final Duration DEFAULT_MAX_BACKOFF = Duration.ofSeconds(30);
+
+    private static final int RECORD_HEADER = 16;
+    private static final String SEGMENT_PREFIX = "outbox-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String ACK_SUFFIX = ".ack";
+    private static final int ACK_INTERVAL = 256;
+    private static final int READ_AHEAD = 64;
+    private static final int READ_BUFFER = 64 * 1024;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final boolean syncEachRecord;
+    private final long initialBackoffNanos;
+    private final long maxBackoffNanos;
+    private final CRC32 crc = new CRC32();
+
+    private final List<Segment> segments = new ArrayList<>();
+    private final List<ChannelWorker> workers;
+    private final List<Thread> threads = new ArrayList<>();
+
+    private FileChannel active;
+    private long nextSequence = 1;
+    private int idleWorkers;
+    private volatile boolean closed;
+
+    public NotificationOutbox(Notifier chain, Path directory) {
+        this(chain, directory, DEFAULT_SEGMENT_SIZE, false, DEFAULT_INITIAL_BACKOFF, DEFAULT_MAX_BACKOFF);
+    }
+
+    /**
+     * Opens the outbox, replays what is on disk and starts one worker per channel.
+     *
+     * @param chain The chain to deliver to
+     * @param directory Where the segments and acknowledgements live; created if missing
+     * @param segmentSize Bytes after which a new segment is started
+     * @param syncEachRecord Whether to force each record to disk before notify returns
+     * @param initialBackoff Wait before the first retry of a failed send
+     * @param maxBackoff Longest wait between retries
+     * @throws IllegalArgumentException if two channels would share an .ack file
+     * @throws UncheckedIOException if the directory cannot be read or written
+     */
+    public NotificationOutbox(Notifier chain, Path directory, int segmentSize, boolean syncEachRecord,
+                              Duration initialBackoff, Duration maxBackoff) {
+        if (chain == null || directory == null || initialBackoff == null || maxBackoff == null) {
+            throw new IllegalArgumentException("chain, directory and backoffs must not be null");
+        }
+        if (segmentSize <= RECORD_HEADER) {
+            throw new IllegalArgumentException("segmentSize must be larger than " + RECORD_HEADER);
+        }
+        if (initialBackoff.isNegative() || initialBackoff.isZero() || maxBackoff.compareTo(initialBackoff) < 0) {
+            throw new IllegalArgumentException("backoffs must be positive with maxBackoff >= initialBackoff");
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.syncEachRecord = syncEachRecord;
+        this.initialBackoffNanos = initialBackoff.toNanos();
+        this.maxBackoffNanos = maxBackoff.toNanos();
+        List<Channel> channels = DeliveryPlan.cachedFor(chain).channels();
+        Set<Path> ackFiles = new HashSet<>();
+        for (Channel channel : channels) {
+            // Two workers sharing an .ack file would overwrite each other's progress
+            if (!ackFiles.add(ackFile(channel))) {
+                throw new IllegalArgumentException("channel " + channel.key + " shares its ack file "
+                        + ackFile(channel) + " with another channel");
+            }
+        }
+        List<ChannelWorker> list = new ArrayList<>(channels.size());
+        try {
+            Files.createDirectories(directory);
+            recover();
+            for (Channel channel : channels) {
+                ChannelWorker worker = new ChannelWorker(channel, readAck(channel));
+                // Compaction may have deleted every record; never reuse a sequence a channel has acknowledged
+                nextSequence = Math.max(nextSequence, worker.acked + 1);
+                list.add(worker);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("cannot open outbox in " + directory, e);
+        }
+        this.workers = Collections.unmodifiableList(list);
+        discardAcknowledged();
+        for (ChannelWorker worker : workers) {
+            threads.add(NotificationThreads.start("outbox-" + worker.channel.key, worker::run));
+        }
+    }
+
+    /**
+     * Appends the message to the outbox; the channels send it in the background.
+     *
+     * @throws IllegalStateException if the outbox is closed
+     * @throws UncheckedIOException if the message cannot be written
+     */
+    @Override
+    public void notify(String text) {
+        if (text == null) {
+            throw new IllegalArgumentException("text must not be null");
+        }
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("outbox is closed");
+            }
+            long sequence = nextSequence;
+            try {
+                append(sequence, text.getBytes(StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                throw new UncheckedIOException("cannot append to outbox", e);
+            }
+            nextSequence++;
+            if (idleWorkers > 0) {
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Gets how many messages each channel still has to send.
+     *
+     * @return Backlog by channel key (e.g. "0-EmailNotifier"), in delivery order
+     */
+    public synchronized Map<String, Long> getBacklog() {
+        Map<String, Long> backlog = new LinkedHashMap<>();
+        for (ChannelWorker worker : workers) {
+            backlog.put(worker.channel.key, nextSequence - 1 - worker.acked);
+        }
+        return backlog;
+    }
+
+    /**
+     * Waits until every channel has sent everything notified so far.
+     *
+     * @param timeout Longest to wait
+     * @return true if the outbox drained in time
+     */
+    public synchronized boolean awaitDelivered(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (minAcked(false) < nextSequence - 1) {
+            long left = deadline - System.nanoTime();
+            if (left <= 0) {
+                return false;
+            }
+            wait(Math.max(1L, left / 1_000_000));
+        }
+        return true;
+    }
+
+    /**
+     * Stops the workers and closes the log. Anything not yet sent stays on
+     * disk and is sent by the next outbox opened on this directory.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            notifyAll();
+        }
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        synchronized (this) {
+            try {
+                active.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException("cannot close outbox", e);
+            }
+        }
+    }
+
+    private void append(long sequence, byte[] text) throws IOException {
+        int length = RECORD_HEADER + text.length;
+        if (length > segmentSize) {
+            throw new IllegalArgumentException("message of " + text.length + " bytes does not fit in a segment");
+        }
+        Segment current = segments.get(segments.size() - 1);
+        if (current.size + length > segmentSize) {
+            roll();
+            current = segments.get(segments.size() - 1);
+        }
+        ByteBuffer record = ByteBuffer.allocate(length);
+        record.putInt(length).putInt(0).putLong(sequence).put(text);
+        record.putInt(4, checksum(record.array(), length));
+        record.flip();
+        // One write per record, so a crash leaves at most one torn record at the tail
+        while (record.hasRemaining()) {
+            active.write(record);
+        }
+        if (syncEachRecord) {
+            active.force(false);
+        }
+        current.size += length;
+        if (current.firstSequence == 0) {
+            current.firstSequence = sequence;
+        }
+        current.lastSequence = sequence;
+    }
+
+    private int checksum(byte[] record, int length) {
+        crc.reset();
+        crc.update(record, 8, length - 8);
+        return (int) crc.getValue();
+    }
+
+    private void roll() throws IOException {
+        if (active != null) {
+            active.close();
+        }
+        int index = segments.isEmpty() ? 0 : segments.get(segments.size() - 1).index + 1;
+        Segment segment = new Segment(index, directory.resolve(String.format("%s%08d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX)));
+        active = FileChannel.open(segment.path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        segments.add(segment);
+    }
+
+    private void recover() throws IOException {
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(p -> p.getFileName().toString().startsWith(SEGMENT_PREFIX)
+                    && p.getFileName().toString().endsWith(SEGMENT_SUFFIX)).sorted().collect(Collectors.toList());
+        }
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            int index = Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+            Segment segment = new Segment(index, file);
+            long fileSize;
+            // Streamed through a small buffer: only each segment's range and size are kept
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                fileSize = channel.size();
+                SegmentReader reader = new SegmentReader(channel);
+                while (reader.next(fileSize, crc)) {
+                    if (segment.firstSequence == 0) {
+                        segment.firstSequence = reader.sequence;
+                    }
+                    segment.lastSequence = reader.sequence;
+                    nextSequence = Math.max(nextSequence, reader.sequence + 1);
+                }
+                segment.size = reader.position;
+            }
+            if (segment.size < fileSize) {
+                // Torn or corrupt tail from a crash mid-write: cut it off
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                    channel.truncate(segment.size);
+                }
+            }
+            segments.add(segment);
+        }
+        if (segments.isEmpty()) {
+            roll();
+        } else {
+            Segment last = segments.get(segments.size() - 1);
+            active = FileChannel.open(last.path, StandardOpenOption.WRITE);
+            active.position(last.size);
+        }
+    }
+
+    // A channel with no acknowledgement yet starts from the oldest message on disk
+    private long readAck(Channel channel) throws IOException {
+        Path file = ackFile(channel);
+        if (Files.exists(file)) {
+            return Long.parseLong(Files.readString(file, StandardCharsets.UTF_8).trim());
+        }
+        for (Segment segment : segments) {
+            if (segment.firstSequence != 0) {
+                return segment.firstSequence - 1;
+            }
+        }
+        return nextSequence - 1;
+    }
+
+    private void writeAck(Channel channel, long sequence) throws IOException {
+        Path file = ackFile(channel);
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.writeString(temp, Long.toString(sequence), StandardCharsets.UTF_8);
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Path ackFile(Channel channel) {
+        return directory.resolve(channel.key.replaceAll("[^A-Za-z0-9._-]", "_") + ACK_SUFFIX);
+    }
+
+    private long minAcked(boolean recordedOnly) {
+        long min = Long.MAX_VALUE;
+        for (ChannelWorker worker : workers) {
+            min = Math.min(min, recordedOnly ? worker.recorded : worker.acked);
+        }
+        return workers.isEmpty() ? nextSequence - 1 : min;
+    }
+
+    // Compaction: delete the segments that hold only messages every channel has recorded as sent
+    private synchronized void discardAcknowledged() {
+        long min = minAcked(true);
+        while (segments.size() > 1 && segments.get(0).lastSequence <= min) {
+            Segment done = segments.remove(0);
+            try {
+                Files.deleteIfExists(done.path);
+            } catch (IOException e) {
+                // Harmless: the next compaction tries again
+                segments.add(0, done);
+                return;
+            }
+        }
+    }
+
+    private static final class Segment {
+        final int index;
+        final Path path;
+        long size;
+        long firstSequence;
+        long lastSequence;
+
+        Segment(int index, Path path) {
+            this.index = index;
+            this.path = path;
+        }
+    }
+
+    /**
+     * Reads one segment's records in order through a small buffer, never
+     * past a given end, so it can follow a segment that is still being
+     * appended to. A record's text is only decoded when asked for.
+     */
+    private static final class SegmentReader {
+        private final FileChannel file;
+        private ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER).flip();
+        private long filePosition;
+        // End of the last record read, and that record's fields
+        long position;
+        long sequence;
+        private int textOffset;
+        private int textLength;
+
+        SegmentReader(FileChannel file) {
+            this.file = file;
+        }
+
+        // False at the end, or at a torn record; with a crc, also at a corrupt one
+        boolean next(long end, CRC32 crc) throws IOException {
+            if (!buffered(RECORD_HEADER, end)) {
+                return false;
+            }
+            int length = buffer.getInt(buffer.position());
+            if (length < RECORD_HEADER || position + length > end || !buffered(length, end)) {
+                return false;
+            }
+            int start = buffer.position();
+            if (crc != null) {
+                crc.reset();
+                crc.update(buffer.array(), start + 8, length - 8);
+                if ((int) crc.getValue() != buffer.getInt(start + 4)) {
+                    return false;
+                }
+            }
+            sequence = buffer.getLong(start + 8);
+            textOffset = start + RECORD_HEADER;
+            textLength = length - RECORD_HEADER;
+            buffer.position(start + length);
+            position += length;
+            return true;
+        }
+
+        String text() {
+            return new String(buffer.array(), textOffset, textLength, StandardCharsets.UTF_8);
+        }
+
+        private boolean buffered(int bytes, long end) throws IOException {
+            while (buffer.remaining() < bytes) {
+                long left = end - filePosition;
+                if (left <= 0) {
+                    return false;
+                }
+                if (buffer.capacity() < bytes) {
+                    // A record larger than the buffer
+                    buffer = ByteBuffer.allocate(bytes).put(buffer);
+                } else {
+                    buffer.compact();
+                }
+                buffer.limit(buffer.position() + (int) Math.min(buffer.remaining(), left));
+                int read = file.read(buffer, filePosition);
+                buffer.flip();
+                if (read <= 0) {
+                    return false;
+                }
+                filePosition += read;
+            }
+            return true;
+        }
+    }
+
+    private static final class Record {
+        final long sequence;
+        final String text;
+
+        Record(long sequence, String text) {
+            this.sequence = sequence;
+            this.text = text;
+        }
+    }
+
+    private final class ChannelWorker {
+        final Channel channel;
+        // Last sequence sent, and last one written to the channel's .ack file
+        volatile long acked;
+        volatile long recorded;
+        // This channel's place in the log, and the next few records read from there
+        private Segment segment;
+        private FileChannel file;
+        private SegmentReader reader;
+        private final ArrayDeque<Record> window = new ArrayDeque<>();
+
+        ChannelWorker(Channel channel, long acked) {
+            this.channel = channel;
+            this.acked = acked;
+            this.recorded = acked;
+        }
+
+        void run() {
+            try {
+                deliver();
+            } finally {
+                closeSegment();
+                if (acked > recorded) {
+                    try {
+                        writeAck(channel, acked);
+                        recorded = acked;
+                    } catch (IOException e) {
+                        System.err.println("Outbox could not record delivery to " + channel.name + ": " + e);
+                    }
+                }
+            }
+        }
+
+        private void deliver() {
+            int failures = 0;
+            while (true) {
+                synchronized (NotificationOutbox.this) {
+                    while (!closed && acked >= nextSequence - 1) {
+                        idleWorkers++;
+                        boolean interrupted = !waitQuietly(0);
+                        idleWorkers--;
+                        if (interrupted) {
+                            return;
+                        }
+                    }
+                    if (closed) {
+                        return;
+                    }
+                }
+                Record next = window.peek();
+                try {
+                    if (next == null) {
+                        long limit = readAhead();
+                        next = window.peek();
+                        if (next == null) {
+                            // A gap only appears if segments were removed by hand; there is nothing to send for it
+                            markSent(limit);
+                            continue;
+                        }
+                    }
+                    channel.send.accept(next.text);
+                } catch (IOException | RuntimeException e) {
+                    if (e instanceof IOException) {
+                        closeSegment();
+                    }
+                    failures++;
+                    long backoff = backoffNanos(failures);
+                    System.err.println("Outbox send to " + channel.name + " failed (attempt " + failures
+                            + "), retrying in " + backoff / 1_000_000 + "ms: " + e);
+                    synchronized (NotificationOutbox.this) {
+                        if (!closed && !waitQuietly(Math.max(1L, backoff / 1_000_000))) {
+                            return;
+                        }
+                    }
+                    continue;
+                }
+                failures = 0;
+                window.poll();
+                markSent(next.sequence);
+            }
+        }
+
+        private void markSent(long sequence) {
+            boolean caughtUp;
+            synchronized (NotificationOutbox.this) {
+                acked = sequence;
+                caughtUp = sequence >= nextSequence - 1;
+                if (caughtUp) {
+                    NotificationOutbox.this.notifyAll();
+                }
+            }
+            // Recording every send would cost a file replace per message; a crash re-sends at most ACK_INTERVAL
+            if (caughtUp || sequence - recorded >= ACK_INTERVAL) {
+                try {
+                    writeAck(channel, sequence);
+                    recorded = sequence;
+                } catch (IOException e) {
+                    System.err.println("Outbox could not record delivery to " + channel.name + ": " + e);
+                }
+                discardAcknowledged();
+            }
+        }
+
+        /**
+         * Reads up to READ_AHEAD records after the last one sent into the window.
+         * Only records up to the sequence notified so far are read, since
+         * later ones may still be half written.
+         *
+         * @return The last sequence notified when reading started
+         */
+        private long readAhead() throws IOException {
+            long limit;
+            long end;
+            boolean last;
+            synchronized (NotificationOutbox.this) {
+                limit = nextSequence - 1;
+                if (segment == null || !segments.contains(segment)) {
+                    openSegment(firstSegmentAfter(acked));
+                }
+                end = segment.size;
+                last = segment == segments.get(segments.size() - 1);
+            }
+            while (window.size() < READ_AHEAD) {
+                if (!reader.next(end, null)) {
+                    if (last) {
+                        break;
+                    }
+                    synchronized (NotificationOutbox.this) {
+                        openSegment(segments.get(segments.indexOf(segment) + 1));
+                        end = segment.size;
+                        last = segment == segments.get(segments.size() - 1);
+                    }
+                    continue;
+                }
+                if (reader.sequence > acked) {
+                    window.add(new Record(reader.sequence, reader.text()));
+                }
+            }
+            return limit;
+        }
+
+        private Segment firstSegmentAfter(long sequence) {
+            for (Segment candidate : segments) {
+                if (candidate.lastSequence > sequence) {
+                    return candidate;
+                }
+            }
+            return segments.get(segments.size() - 1);
+        }
+
+        private void openSegment(Segment next) throws IOException {
+            closeSegment();
+            file = FileChannel.open(next.path, StandardOpenOption.READ);
+            reader = new SegmentReader(file);
+            segment = next;
+        }
+
+        private void closeSegment() {
+            segment = null;
+            reader = null;
+            if (file != null) {
+                try {
+                    file.close();
+                } catch (IOException e) {
+                    // Nothing was written through it
+                }
+                file = null;
+            }
+        }
+
+        // Doubling from the initial backoff up to the cap, with jitter so channels do not retry in step
+        private long backoffNanos(int failures) {
+            long ceiling = initialBackoffNanos << Math.min(failures - 1, 30);
+            if (ceiling <= 0 || ceiling > maxBackoffNanos) {
+                ceiling = maxBackoffNanos;
+            }
+            return ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1);
+        }
+
+        // False if this worker was interrupted and should stop
+        private boolean waitQuietly(long millis) {
+            try {
+                NotificationOutbox.this.wait(millis);
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.notifications;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A message with {@code {name}} placeholders, parsed once and rendered many
+ * times, e.g. "Deploy of {service} finished in {seconds}s". Write two
+ * opening braces for a literal one.
+ *
+ * Rendering appends the literal parts and values into a StringBuilder kept per
+ * thread and reused, so no buffer is grown or copied per message. Strings and
+ * other CharSequences, Integers and Longs are appended directly; any other
+ * value is converted with toString(). The caller still pays for the varargs
+ * array, boxing primitives outside the Integer cache, and the final String
+ * that {@link Notifier#notify(String)} takes. {@link #renderTo} skips the
+ * final String for callers with their own buffer.
+ */
+public final class NotificationTemplate {
+
+    // Buffers that grew past this are dropped rather than kept per thread
+    private static final int MAX_RETAINED_CAPACITY = 16 * 1024;
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(256));
+
+    private final String source;
+    // literals[i] comes before value i; the last literal follows the last value
+    private final String[] literals;
+    private final List<String> placeholders;
+    private final int literalLength;
+
+    private NotificationTemplate(String source, String[] literals, List<String> placeholders) {
+        this.source = source;
+        this.literals = literals;
+        this.placeholders = placeholders;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    /**
+     * Parses a template.
+     *
+     * @param source The template text
+     * @return The compiled template
+     * @throws IllegalArgumentException if a placeholder is unclosed or empty
+     */
+    public static NotificationTemplate compile(String source) {
+        if (source == null) {
+            throw new IllegalArgumentException("Template must not be null");
+        }
+        List<String> literals = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int i = 0;
+        while (i < source.length()) {
+            char c = source.charAt(i);
+            if (c == '{' && i + 1 < source.length() && source.charAt(i + 1) == '{') {
+                literal.append('{');
+                i += 2;
+            } else if (c == '{') {
+                int end = source.indexOf('}', i + 1);
+                if (end < 0) {
+                    throw new IllegalArgumentException("Unclosed placeholder at " + i + " in: " + source);
+                }
+                String name = source.substring(i + 1, end).trim();
+                if (name.isEmpty()) {
+                    throw new IllegalArgumentException("Empty placeholder at " + i + " in: " + source);
+                }
+                literals.add(literal.toString());
+                literal.setLength(0);
+                names.add(name);
+                i = end + 1;
+            } else {
+                literal.append(c);
+                i++;
+            }
+        }
+        literals.add(literal.toString());
+        return new NotificationTemplate(source, literals.toArray(new String[0]), Collections.unmodifiableList(names));
+    }
+
+    /**
+     * Gets the placeholder names, in the order their values are passed.
+     *
+     * @return Placeholder names
+     */
+    public List<String> getPlaceholders() {
+        return placeholders;
+    }
+
+    /**
+     * Renders the message.
+     *
+     * @param values One value per placeholder, in order
+     * @return The message
+     */
+    public String render(Object... values) {
+        StringBuilder buffer = BUFFER.get();
+        buffer.setLength(0);
+        renderTo(buffer, values);
+        String text = buffer.toString();
+        if (buffer.capacity() > MAX_RETAINED_CAPACITY) {
+            BUFFER.remove();
+        }
+        return text;
+    }
+
+    /**
+     * Appends the rendered message to a caller's buffer.
+     *
+     * @param out Where to append
+     * @param values One value per placeholder, in order
+     * @return out
+     * @throws IllegalArgumentException if the number of values does not match the placeholders
+     */
+    public StringBuilder renderTo(StringBuilder out, Object... values) {
+        if (values.length != placeholders.size()) {
+            throw new IllegalArgumentException("Template " + source + " needs " + placeholders.size()
+                    + " values, got " + values.length);
+        }
+        out.ensureCapacity(out.length() + literalLength + 16 * values.length);
+        out.append(literals[0]);
+        for (int i = 0; i < values.length; i++) {
+            appendValue(out, values[i]);
+            out.append(literals[i + 1]);
+        }
+        return out;
+    }
+
+    // Skips the intermediate String that append(Object) makes via toString()
+    private static void appendValue(StringBuilder out, Object value) {
+        if (value instanceof CharSequence) {
+            out.append((CharSequence) value);
+        } else if (value instanceof Integer) {
+            out.append(((Integer) value).intValue());
+        } else if (value instanceof Long) {
+            out.append(((Long) value).longValue());
+        } else {
+            out.append(value);
+        }
+    }
+
+    /**
+     * Renders the message and sends it.
+     *
+     * @param notifier Where to send it
+     * @param values One value per placeholder, in order
+     */
+    public void notify(Notifier notifier, Object... values) {
+        notifier.notify(render(values));
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+}
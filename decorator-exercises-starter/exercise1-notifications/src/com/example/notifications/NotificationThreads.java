@@ -0,0 +1,57 @@
+package com.example.notifications;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Thread factory for channel workers: virtual threads when the JVM has them,
+ * otherwise daemon platform threads.
+ */
+final class NotificationThreads {
+
+    private static final ThreadFactory VIRTUAL = lookupVirtualFactory();
+
+    private NotificationThreads() {
+    }
+
+    /**
+     * Starts a worker thread.
+     *
+     * @param name Thread name, e.g. the channel it serves
+     * @param task What the thread runs
+     * @return The started thread
+     */
+    static Thread start(String name, Runnable task) {
+        Thread thread;
+        if (VIRTUAL != null) {
+            thread = VIRTUAL.newThread(task);
+        } else {
+            thread = new Thread(task);
+            thread.setDaemon(true);
+        }
+        thread.setName(name);
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * Tells whether workers run on virtual threads.
+     *
+     * @return true on a JVM with virtual threads
+     */
+    static boolean isVirtual() {
+        return VIRTUAL != null;
+    }
+
+    // Thread.ofVirtual() is not in Java 17, so it is looked up rather than linked against
+    private static ThreadFactory lookupVirtualFactory() {
+        try {
+            Method ofVirtual = Thread.class.getMethod("ofVirtual");
+            Object builder = ofVirtual.invoke(null);
+            Method factory = Class.forName("java.lang.Thread$Builder").getMethod("factory");
+            return (ThreadFactory) factory.invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+}
@@ -3,9 +3,15 @@ package com.example.notifications;
 /**
  * Base decorator that wraps a {@link Notifier} and forwards calls to it.
  * Concrete decorators extend this to add channels while adhering to OCP.
+ *
+ * A decorator adds its channel by implementing {@link #send(String)}. A
+ * subclass may still override {@link #notify(String)} to add behaviour
+ * around the whole chain, calling {@code super.notify(text)} to deliver it;
+ * the override runs even when other decorators wrap this one.
  */
 public abstract class NotifierDecorator implements Notifier {
     private final Notifier wrapped;
+    private volatile DeliveryPlan plan;
 
     protected NotifierDecorator(Notifier wrapped) {
         if (wrapped == null) {
@@ -18,11 +24,35 @@ public abstract class NotifierDecorator implements Notifier {
         return wrapped;
     }
 
+    /**
+     * Gets the plan for this chain, building it on first use.
+     *
+     * @return The delivery plan
+     */
+    public DeliveryPlan getPlan() {
+        DeliveryPlan p = plan;
+        if (p == null) {
+            // Racing threads build equal plans; either one may be kept
+            p = DeliveryPlan.ofOwnChain(this);
+            plan = p;
+        }
+        return p;
+    }
+
     @Override
     public void notify(String text) {
-        // Default behavior: delegate to the wrapped notifier.
-        wrapped.notify(text);
+        // Each distinct channel in the chain once, this decorator's own first; see DeliveryPlan.
+        getPlan().deliver(text);
     }
-}
 
+    /**
+     * Sends on this decorator's own channel only, without delegating.
+     */
+    protected abstract void send(String text);
 
+    /**
+     * Gets who this decorator sends to. Two decorators of the same class with
+     * the same recipient are the same channel and are sent to once per message.
+     */
+    protected abstract String getRecipient();
+}
@@ -0,0 +1,27 @@
+package com.example.notifications;
+
+/**
+ * How urgent a notification is. Each channel serves its priority lanes in
+ * proportion to their weights, so a flood of LOW notices slows HIGH alerts
+ * down by at most a small fraction instead of queueing them behind it.
+ */
+public enum Priority {
+    HIGH(6),
+    NORMAL(3),
+    LOW(1);
+
+    private final int weight;
+
+    Priority(int weight) {
+        this.weight = weight;
+    }
+
+    /**
+     * Gets the lane's share of sends while several lanes have messages waiting.
+     *
+     * @return Relative weight
+     */
+    public int getWeight() {
+        return weight;
+    }
+}
@@ -5,18 +5,22 @@ package com.example.notifications;
  */
 public class SlackDecorator extends NotifierDecorator {
     private final String channel;
+    // Built once, so a send concatenates only the prefix and the text
+    private final String prefix;
 
     public SlackDecorator(Notifier wrapped, String channel) {
         super(wrapped);
         this.channel = channel;
+        this.prefix = "[SLACK -> #" + channel + "]: ";
     }
 
     @Override
-    public void notify(String text) {
-        // Send Slack message first, then delegate to base channel(s)
-        System.out.println("[SLACK -> #" + channel + "]: " + text);
-        super.notify(text);
+    protected void send(String text) {
+        System.out.println(prefix + text);
     }
-}
-
 
+    @Override
+    protected String getRecipient() {
+        return "#" + channel;
+    }
+}
@@ -5,18 +5,21 @@ package com.example.notifications;
  */
 public class SmsDecorator extends NotifierDecorator {
     private final String phoneNumber;
+    private final String prefix;
 
     public SmsDecorator(Notifier wrapped, String phoneNumber) {
         super(wrapped);
         this.phoneNumber = phoneNumber;
+        this.prefix = "[SMS   -> " + phoneNumber + "]: ";
     }
 
     @Override
-    public void notify(String text) {
-        // Send SMS first, then delegate to base channel(s)
-        System.out.println("[SMS   -> " + phoneNumber + "]: " + text);
-        super.notify(text);
+    protected void send(String text) {
+        System.out.println(prefix + text);
     }
-}
-
 
+    @Override
+    protected String getRecipient() {
+        return phoneNumber;
+    }
+}
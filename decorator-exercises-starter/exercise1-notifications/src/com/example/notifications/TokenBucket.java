@@ -0,0 +1,45 @@
+package com.example.notifications;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket for one channel's provider quota.
+ *
+ * Kept as the time at which the bucket would be full again (the generic cell
+ * rate algorithm), so there is no refill thread. Only the channel's worker
+ * takes permits, so no synchronization is needed.
+ */
+final class TokenBucket {
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    private long fullAt = System.nanoTime();
+
+    /**
+     * @param permitsPerSecond Sustained sends per second
+     * @param burst Sends allowed at once after a quiet period
+     */
+    TokenBucket(double permitsPerSecond, int burst) {
+        if (!(permitsPerSecond > 0) || burst < 1) {
+            throw new IllegalArgumentException("permitsPerSecond and burst must be positive");
+        }
+        this.intervalNanos = Math.max(1L, (long) (1_000_000_000L / permitsPerSecond));
+        this.burstNanos = intervalNanos * burst;
+    }
+
+    /**
+     * Takes one permit, sleeping until it is available.
+     *
+     * @return Nanoseconds slept
+     */
+    long acquire() throws InterruptedException {
+        long now = System.nanoTime();
+        long next = Math.max(fullAt, now) + intervalNanos;
+        long wait = next - burstNanos - now;
+        if (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+        fullAt = next;
+        return Math.max(0L, wait);
+    }
+}
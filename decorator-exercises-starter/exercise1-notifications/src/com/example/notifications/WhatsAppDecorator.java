@@ -5,18 +5,21 @@ package com.example.notifications;
  */
 public class WhatsAppDecorator extends NotifierDecorator {
     private final String handle;
+    private final String prefix;
 
     public WhatsAppDecorator(Notifier wrapped, String handle) {
         super(wrapped);
         this.handle = handle;
+        this.prefix = "[WHATSAPP -> " + handle + "]: ";
     }
 
     @Override
-    public void notify(String text) {
-        // Send WhatsApp first, then delegate to base channel(s)
-        System.out.println("[WHATSAPP -> " + handle + "]: " + text);
-        super.notify(text);
+    protected void send(String text) {
+        System.out.println(prefix + text);
     }
-}
-
 
+    @Override
+    protected String getRecipient() {
+        return handle;
+    }
+}
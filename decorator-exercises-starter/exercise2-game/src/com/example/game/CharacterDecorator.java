@@ -3,12 +3,42 @@ package com.example.game;
 /**
  * Base decorator that delegates to the wrapped Character.
  * Adheres to Open/Closed — concrete decorators extend behavior without modifying cores.
+ *
+ * A stack never changes after it is built (recomposing makes new decorators),
+ * so each decorator works out its {@link CharacterStats} once, in the
+ * constructor, from the snapshot of the character it wraps. Stat reads are
+ * then O(1) however deep the stack is.
+ *
+ * The stat getters are final: a decorator changes stats only through the
+ * bonuses it passes to the constructor, so an outer decorator always sees
+ * them. A base character is read once, when it is first wrapped, and must
+ * not change its stats after that; wrap it again to pick up new values.
  */
 public abstract class CharacterDecorator implements Character {
     protected final Character inner;
+    private final CharacterStats stats;
 
     protected CharacterDecorator(Character inner) {
+        this(inner, 0, 0, "");
+    }
+
+    /**
+     * @param inner The character to wrap
+     * @param speedBonus Added to the inner speed
+     * @param damageBonus Added to the inner damage
+     * @param spriteSuffix Appended to the inner sprite
+     */
+    protected CharacterDecorator(Character inner, int speedBonus, int damageBonus, String spriteSuffix) {
+        if (inner == null) {
+            throw new IllegalArgumentException("Wrapped character must not be null");
+        }
         this.inner = inner;
+        this.stats = CharacterStats.of(inner).plus(speedBonus, damageBonus, spriteSuffix);
+    }
+
+    /** The stats of the whole stack up to and including this decorator. */
+    public final CharacterStats getStats() {
+        return stats;
     }
 
     @Override
@@ -22,19 +52,17 @@ public abstract class CharacterDecorator implements Character {
     }
 
     @Override
-    public int getSpeed() {
-        return inner.getSpeed();
+    public final int getSpeed() {
+        return stats.getSpeed();
     }
 
     @Override
-    public int getDamage() {
-        return inner.getDamage();
+    public final int getDamage() {
+        return stats.getDamage();
     }
 
     @Override
-    public String getSprite() {
-        return inner.getSprite();
+    public final String getSprite() {
+        return stats.getSprite();
     }
 }
-
-
@@ -0,0 +1,57 @@
+package com.example.game;
+
+/**
+ * Immutable snapshot of a character's stats, plus the lines move() and
+ * attack() print, built once when a decorator is composed.
+ * Reads are plain field loads: no walk down the stack, no string building.
+ */
+public final class CharacterStats {
+    private final int speed;
+    private final int damage;
+    private final String sprite;
+    private final String moveLine;
+    private final String attackLine;
+
+    public CharacterStats(int speed, int damage, String sprite) {
+        this.speed = speed;
+        this.damage = damage;
+        this.sprite = sprite;
+        this.moveLine = "Moving at speed " + speed + " with sprite " + sprite;
+        this.attackLine = "Attacking with damage " + damage + " using sprite " + sprite;
+    }
+
+    /**
+     * Snapshot of any character. A decorator already carries one, and its
+     * getters are final, so the snapshot is what they return. Anything else
+     * is read once through its getters and is not read again.
+     */
+    public static CharacterStats of(Character character) {
+        if (character instanceof CharacterDecorator) {
+            return ((CharacterDecorator) character).getStats();
+        }
+        return new CharacterStats(character.getSpeed(), character.getDamage(), character.getSprite());
+    }
+
+    /** Returns these stats with bonuses applied; this instance if there are none. */
+    public CharacterStats plus(int speedBonus, int damageBonus, String spriteSuffix) {
+        if (speedBonus == 0 && damageBonus == 0 && spriteSuffix.isEmpty()) {
+            return this;
+        }
+        return new CharacterStats(speed + speedBonus, damage + damageBonus, sprite + spriteSuffix);
+    }
+
+    public int getSpeed() { return speed; }
+
+    public int getDamage() { return damage; }
+
+    public String getSprite() { return sprite; }
+
+    public String getMoveLine() { return moveLine; }
+
+    public String getAttackLine() { return attackLine; }
+
+    @Override
+    public String toString() {
+        return "speed=" + speed + " damage=" + damage + " sprite=" + sprite;
+    }
+}
@@ -6,44 +6,25 @@ package com.example.game;
  */
 public class GoldenAura extends CharacterDecorator {
     private static final String AURA_SPRITE_SUFFIX = " + aura";
-    private final int speedBonus;
-    private final int damageBonus;
 
     public GoldenAura(Character inner) {
         this(inner, 1, 2);
     }
 
     public GoldenAura(Character inner, int speedBonus, int damageBonus) {
-        super(inner);
-        this.speedBonus = speedBonus;
-        this.damageBonus = damageBonus;
-    }
-
-    @Override
-    public String getSprite() {
-        return inner.getSprite() + AURA_SPRITE_SUFFIX;
-    }
-
-    @Override
-    public int getSpeed() {
-        return inner.getSpeed() + speedBonus;
-    }
-
-    @Override
-    public int getDamage() {
-        return inner.getDamage() + damageBonus;
+        super(inner, speedBonus, damageBonus, AURA_SPRITE_SUFFIX);
     }
 
     @Override
     public void move() {
         System.out.println("[GoldenAura] shimmering...");
-        System.out.println("Moving at speed " + getSpeed() + " with sprite " + getSprite());
+        System.out.println(getStats().getMoveLine());
     }
 
     @Override
     public void attack() {
         System.out.println("[GoldenAura] radiant strike!");
-        System.out.println("Attacking with damage " + getDamage() + " using sprite " + getSprite());
+        System.out.println(getStats().getAttackLine());
     }
 }
 
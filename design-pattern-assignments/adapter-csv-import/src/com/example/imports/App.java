@@ -1,15 +1,37 @@
 package com.example.imports;
 
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 
 public class App {
     public static void main(String[] args) {
-        if (args.length == 0) throw new IllegalArgumentException("path required");
-        Path csv = Path.of(args[0]);
-        
-        // Create adapter with dependency injection
-        ProfileImporter importer = new CsvProfileImporter(new NaiveCsvReader(), new ProfileService());
-        int n = importer.importFrom(csv);
+        List<String> positional = new ArrayList<>();
+        boolean dedup = false;
+        boolean progress = false;
+        Path checkpoint = null;
+        for (String arg : args) {
+            if (arg.equals("--dedup")) dedup = true;
+            else if (arg.equals("--progress")) progress = true;
+            else if (arg.startsWith("--checkpoint=")) checkpoint = Path.of(arg.substring("--checkpoint=".length()));
+            else positional.add(arg);
+        }
+        if (positional.isEmpty()) throw new IllegalArgumentException("path required");
+        if (checkpoint != null && (dedup || positional.size() > 1)) {
+            throw new IllegalArgumentException("--checkpoint cannot be combined with a thread count or --dedup");
+        }
+        Path csv = Path.of(positional.get(0));
+        DuplicateDetector detector = dedup ? new DuplicateDetector() : null;
+
+        // Create adapter with dependency injection; an optional thread count selects the parallel importer
+        ProfileImporter importer = checkpoint != null
+                ? new ResumableCsvProfileImporter(new ProfileService(), checkpoint)
+                : positional.size() > 1
+                ? new ParallelCsvProfileImporter(new ProfileService(), Integer.parseInt(positional.get(1)),
+                        ProfileBatcher.DEFAULT_BATCH_SIZE, RejectSummary.DEFAULT_SAMPLE_LIMIT, detector)
+                : new CsvProfileImporter(new NaiveCsvReader(), new ProfileService(), detector);
+        // Progress goes to stderr so it does not mix with the created-profile lines
+        int n = importer.importFrom(csv, progress ? p -> System.err.println(p) : null);
         System.out.println("Imported " + n + " profiles");
     }
 }
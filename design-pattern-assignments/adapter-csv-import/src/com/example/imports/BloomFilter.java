@@ -0,0 +1,68 @@
+package com.example.imports;
+
+/**
+ * Bloom filter over 64-bit fingerprints.
+ *
+ * Uses double hashing to derive the k bit positions from one fingerprint, so
+ * no extra hashing of the original key is needed. A negative answer is exact;
+ * a positive answer only means "maybe seen".
+ */
+final class BloomFilter {
+
+    private static final long MAX_BITS = (long) (Integer.MAX_VALUE - 8) * Long.SIZE;
+
+    private final long[] bits;
+    private final long bitCount;
+    private final int hashCount;
+
+    /**
+     * Creates a filter sized for the expected insertions and false-positive rate.
+     *
+     * @param expectedInsertions Expected number of distinct fingerprints
+     * @param falsePositiveRate Target false-positive probability, between 0 and 1
+     * @throws IllegalArgumentException if falsePositiveRate is out of range
+     */
+    BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("falsePositiveRate must be between 0 and 1");
+        }
+        long n = Math.max(expectedInsertions, 1);
+        double ln2 = Math.log(2);
+        long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (ln2 * ln2));
+        m = Math.min(Math.max(m, Long.SIZE), MAX_BITS);
+        this.bits = new long[(int) ((m + Long.SIZE - 1) / Long.SIZE)];
+        this.bitCount = (long) bits.length * Long.SIZE;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * ln2));
+    }
+
+    /**
+     * Adds a fingerprint.
+     *
+     * @param fingerprint The fingerprint
+     * @return true if the fingerprint was definitely not present before
+     */
+    boolean put(long fingerprint) {
+        long h1 = fingerprint;
+        long h2 = LongHashSet.mix(fingerprint) | 1L;
+        boolean changed = false;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            int word = (int) (bit >>> 6);
+            long flag = 1L << bit;
+            if ((bits[word] & flag) == 0) {
+                bits[word] |= flag;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Gets the bytes held by the bit array.
+     *
+     * @return Size in bytes
+     */
+    long memoryBytes() {
+        return (long) bits.length * Long.BYTES;
+    }
+}
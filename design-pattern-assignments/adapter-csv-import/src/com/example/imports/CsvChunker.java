@@ -0,0 +1,96 @@
+package com.example.imports;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits a CSV file into byte ranges that start and end on record boundaries.
+ *
+ * Boundaries are found with the same state machine as CsvRecordParser, so a
+ * newline inside a quoted field never becomes a split point. The scan only
+ * tracks quote state and does not build any strings, so it is cheap compared
+ * to parsing, validating and importing the chunks themselves.
+ */
+final class CsvChunker {
+
+    private CsvChunker() {
+    }
+
+    /**
+     * A record-aligned slice of the file.
+     */
+    static final class Chunk {
+        private final long start;
+        private final long end;
+        private final long firstRow;
+
+        Chunk(long start, long end, long firstRow) {
+            this.start = start;
+            this.end = end;
+            this.firstRow = firstRow;
+        }
+
+        long getStart() {
+            return start;
+        }
+
+        long getEnd() {
+            return end;
+        }
+
+        long getLength() {
+            return end - start;
+        }
+
+        /**
+         * Gets the 1-based row number of the chunk's first record.
+         *
+         * @return The original row number
+         */
+        long getFirstRow() {
+            return firstRow;
+        }
+    }
+
+    /**
+     * Splits the file into roughly {@code parts} chunks of similar byte size.
+     *
+     * @param file The CSV file
+     * @param parts Desired number of chunks
+     * @return Chunks in file order; fewer than requested for small files
+     * @throws IOException if the file cannot be read
+     */
+    static List<Chunk> split(Path file, int parts) throws IOException {
+        if (parts < 1) {
+            throw new IllegalArgumentException("parts must be positive");
+        }
+        long size = Files.size(file);
+        List<Chunk> chunks = new ArrayList<>(parts);
+        if (size == 0) {
+            return chunks;
+        }
+
+        long target = Math.max(1, size / parts);
+        long chunkStart = 0;
+        long chunkFirstRow = 1;
+        long row = 1;
+        try (InputStream in = Files.newInputStream(file)) {
+            CsvRecordParser parser = new CsvRecordParser(in);
+            while (parser.skip()) {
+                row++;
+                long boundary = parser.offset();
+                if (boundary - chunkStart >= target && boundary < size) {
+                    chunks.add(new Chunk(chunkStart, boundary, chunkFirstRow));
+                    chunkStart = boundary;
+                    chunkFirstRow = row;
+                }
+            }
+        }
+        chunks.add(new Chunk(chunkStart, size, chunkFirstRow));
+        return chunks;
+    }
+}
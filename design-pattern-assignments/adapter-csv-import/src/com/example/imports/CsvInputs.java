@@ -0,0 +1,60 @@
+package com.example.imports;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Opens CSV input files, transparently decompressing gzip.
+ *
+ * Gzip is recognised by its magic bytes rather than the file name, so a
+ * {@code .csv.gz} export can be imported without decompressing it to disk first.
+ */
+final class CsvInputs {
+
+    private static final int GZIP_MAGIC_0 = 0x1f;
+    private static final int GZIP_MAGIC_1 = 0x8b;
+    // Typical compression ratio of CSV text, used only for size estimates
+    private static final int GZIP_RATIO_ESTIMATE = 5;
+
+    private CsvInputs() {
+    }
+
+    /**
+     * Checks whether a file is gzip-compressed.
+     *
+     * @param file The file
+     * @return true if the file starts with the gzip magic bytes
+     * @throws IOException if the file cannot be read
+     */
+    static boolean isGzip(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return in.read() == GZIP_MAGIC_0 && in.read() == GZIP_MAGIC_1;
+        }
+    }
+
+    /**
+     * Opens the file's uncompressed content.
+     *
+     * @param file The plain or gzip-compressed file
+     * @return A stream of uncompressed bytes
+     * @throws IOException if the file cannot be opened
+     */
+    static InputStream open(Path file) throws IOException {
+        InputStream raw = Files.newInputStream(file);
+        return isGzip(file) ? new PipelinedGzipInputStream(raw) : raw;
+    }
+
+    /**
+     * Estimates the uncompressed size, e.g. for sizing structures up front.
+     *
+     * @param file The plain or gzip-compressed file
+     * @return Estimated uncompressed size in bytes
+     * @throws IOException if the file cannot be read
+     */
+    static long estimatedSize(Path file) throws IOException {
+        long size = Files.size(file);
+        return isGzip(file) ? size * GZIP_RATIO_ESTIMATE : size;
+    }
+}
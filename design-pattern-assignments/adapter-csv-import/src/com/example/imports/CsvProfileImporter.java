@@ -1,5 +1,7 @@
 package com.example.imports;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Path;
 import java.util.List;
 import java.util.Objects;
@@ -17,6 +19,7 @@ public class CsvProfileImporter implements ProfileImporter {
     
     private final NaiveCsvReader csvReader;
     private final ProfileService profileService;
+    private final DuplicateDetector duplicateDetector;
     
     /**
      * Constructor with dependency injection.
@@ -26,12 +29,27 @@ public class CsvProfileImporter implements ProfileImporter {
      * @throws NullPointerException if any parameter is null
      */
     public CsvProfileImporter(NaiveCsvReader csvReader, ProfileService profileService) {
+        this(csvReader, profileService, null);
+    }
+    
+    /**
+     * Constructor with an optional dedup stage.
+     * 
+     * @param csvReader The CSV reader to adapt
+     * @param profileService The profile service to create profiles
+     * @param duplicateDetector Rejects repeated ids and emails; null disables dedup
+     * @throws NullPointerException if csvReader or profileService is null
+     */
+    public CsvProfileImporter(NaiveCsvReader csvReader, ProfileService profileService,
+                              DuplicateDetector duplicateDetector) {
         this.csvReader = Objects.requireNonNull(csvReader, "csvReader cannot be null");
         this.profileService = Objects.requireNonNull(profileService, "profileService cannot be null");
+        this.duplicateDetector = duplicateDetector;
     }
     
     /**
      * Imports profiles from CSV file.
+     * Rows are committed in batches and rejects are reported as a summary.
      * 
      * @param csvFile Path to the CSV file
      * @return Number of successfully imported profiles
@@ -39,56 +57,87 @@ public class CsvProfileImporter implements ProfileImporter {
      */
     @Override
     public int importFrom(Path csvFile) {
-        Objects.requireNonNull(csvFile, "csvFile cannot be null");
-        
-        List<String[]> rows = csvReader.read(csvFile);
-        int successCount = 0;
-        
-        for (int i = 0; i < rows.size(); i++) {
-            String[] row = rows.get(i);
-            
-            try {
-                if (isValidRow(row)) {
-                    String id = row[0].trim();
-                    String email = row[1].trim();
-                    String displayName = row.length > 2 ? row[2].trim() : "";
-                    
-                    profileService.createProfile(id, email, displayName);
-                    successCount++;
-                } else {
-                    System.out.println("Skipping invalid row " + (i + 1) + ": missing required fields or invalid email");
-                }
-            } catch (Exception e) {
-                System.out.println("Skipping invalid row " + (i + 1) + ": " + e.getMessage());
-            }
-        }
-        
-        return successCount;
+        return importFrom(csvFile, null);
     }
     
     /**
-     * Validates a CSV row for required fields and email format.
+     * Imports profiles from CSV file, reporting progress to a listener.
      * 
-     * @param row The CSV row to validate
-     * @return true if valid, false otherwise
+     * @param csvFile Path to the CSV file
+     * @param listener Receives periodic progress, may be null
+     * @return Number of successfully imported profiles
+     * @throws NullPointerException if csvFile is null
      */
-    private boolean isValidRow(String[] row) {
-        if (row == null || row.length < 2) {
-            return false;
+    @Override
+    public int importFrom(Path csvFile, ImportListener listener) {
+        ImportResult result = importDetailed(csvFile, listener);
+        System.out.print(result.getRejects().format());
+        if (result.getDuplicates() != null) {
+            System.out.println(result.getDuplicates());
         }
+        return Math.toIntExact(result.getSuccessCount());
+    }
+    
+    /**
+     * Imports profiles and returns the reject summary instead of printing it.
+     * 
+     * @param csvFile Path to the CSV file
+     * @return The import result
+     * @throws NullPointerException if csvFile is null
+     */
+    public ImportResult importDetailed(Path csvFile) {
+        return importDetailed(csvFile, null);
+    }
+    
+    /**
+     * Imports profiles with progress reporting and returns the reject summary.
+     * The reader loads the whole file up front, so parse time is that load and
+     * byte progress is approximated from the row position.
+     * 
+     * @param csvFile Path to the CSV file
+     * @param listener Receives periodic progress, may be null
+     * @return The import result
+     * @throws NullPointerException if csvFile is null
+     */
+    public ImportResult importDetailed(Path csvFile, ImportListener listener) {
+        Objects.requireNonNull(csvFile, "csvFile cannot be null");
         
-        String id = row[0];
-        String email = row[1];
-        
-        // Check for null, empty, or whitespace-only values
-        if (id == null || id.trim().isEmpty()) {
-            return false;
+        long totalBytes;
+        try {
+            totalBytes = CsvInputs.estimatedSize(csvFile);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        ImportMetrics metrics = new ImportMetrics(totalBytes);
+        ImportMetrics.Recorder recorder = metrics.newRecorder(0);
+        try (ImportMetrics.Reporter reporter = metrics.startReporting(listener)) {
+            long readStart = System.nanoTime();
+            List<String[]> rows = csvReader.read(csvFile);
+            recorder.parse(System.nanoTime() - readStart);
+            ImportResult result = importRows(rows, totalBytes, recorder);
+            reporter.complete();
+            return result;
         }
+    }
+    
+    private ImportResult importRows(List<String[]> rows, long totalBytes, ImportMetrics.Recorder recorder) {
+        DuplicateReport duplicates = null;
+        if (duplicateDetector != null) {
+            duplicates = duplicateDetector.detect(rows.size(), visitor -> {
+                for (int i = 0; i < rows.size(); i++) {
+                    visitor.visit(i + 1, rows.get(i));
+                }
+            });
+        }
+        ProfileBatcher batcher = new ProfileBatcher(profileService, ProfileBatcher.DEFAULT_BATCH_SIZE,
+                RejectSummary.DEFAULT_SAMPLE_LIMIT, duplicates, recorder);
         
-        if (email == null || email.trim().isEmpty() || !email.contains("@")) {
-            return false;
+        for (int i = 0; i < rows.size(); i++) {
+            recorder.startRow();
+            recorder.parsed(0L, totalBytes * (i + 1) / rows.size());
+            batcher.accept(i + 1, rows.get(i));
         }
         
-        return true;
+        return batcher.finish();
     }
 }
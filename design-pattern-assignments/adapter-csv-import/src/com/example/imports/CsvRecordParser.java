@@ -0,0 +1,183 @@
+package com.example.imports;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Streaming, quote-aware CSV record parser that works directly on bytes.
+ *
+ * It honours quoted fields, so commas and newlines inside {@code "..."} stay
+ * part of the field and {@code ""} is an escaped quote.
+ * A record ends at an unquoted {@code \n} (a preceding {@code \r} is dropped).
+ *
+ * The parser tracks the absolute byte offset of the input, which lets callers
+ * split a file at record boundaries and parse each part independently.
+ */
+final class CsvRecordParser {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final InputStream in;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int pos;
+    private int limit;
+    private long remaining;
+    private long offset;
+
+    private byte[] field = new byte[128];
+    private int fieldLength;
+    private final List<String> fields = new ArrayList<>();
+
+    /**
+     * Creates a parser reading the whole stream.
+     *
+     * @param in The input stream, positioned at a record boundary
+     */
+    CsvRecordParser(InputStream in) {
+        this(in, 0L, Long.MAX_VALUE);
+    }
+
+    /**
+     * Creates a parser that reads at most {@code length} bytes.
+     *
+     * @param in The input stream, positioned at a record boundary
+     * @param startOffset The absolute offset of the stream's first byte
+     * @param length Maximum number of bytes to consume
+     */
+    CsvRecordParser(InputStream in, long startOffset, long length) {
+        this.in = Objects.requireNonNull(in, "in cannot be null");
+        this.offset = startOffset;
+        this.remaining = length;
+    }
+
+    /**
+     * Parses the next record.
+     *
+     * @return The record's fields, or null at end of input
+     * @throws IOException if the underlying stream fails
+     */
+    String[] next() throws IOException {
+        fields.clear();
+        if (!advance(true)) {
+            return null;
+        }
+        return fields.toArray(new String[0]);
+    }
+
+    /**
+     * Skips the next record without materialising its fields.
+     *
+     * @return true if a record was skipped, false at end of input
+     * @throws IOException if the underlying stream fails
+     */
+    boolean skip() throws IOException {
+        return advance(false);
+    }
+
+    /**
+     * Gets the absolute byte offset just past the last record returned.
+     *
+     * @return The current byte offset
+     */
+    long offset() {
+        return offset;
+    }
+
+    private boolean advance(boolean capture) throws IOException {
+        int b = read();
+        if (b < 0) {
+            return false;
+        }
+        fieldLength = 0;
+        boolean fieldStart = true;
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (b < 0) {
+                    // Unterminated quote: keep what we have
+                    endField(capture);
+                    return true;
+                }
+                if (b == '"') {
+                    if (peek() == '"') {
+                        read();
+                        append('"', capture);
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    append(b, capture);
+                }
+            } else if (b < 0 || b == '\n') {
+                endField(capture);
+                return true;
+            } else if (b == ',') {
+                endField(capture);
+                fieldStart = true;
+                b = read();
+                continue;
+            } else if (b == '"' && fieldStart) {
+                quoted = true;
+            } else if (b == '\r' && peek() == '\n') {
+                // Dropped; the following '\n' ends the record
+            } else {
+                append(b, capture);
+            }
+            fieldStart = false;
+            b = read();
+        }
+    }
+
+    private void append(int b, boolean capture) {
+        if (!capture) {
+            return;
+        }
+        if (fieldLength == field.length) {
+            byte[] grown = new byte[field.length * 2];
+            System.arraycopy(field, 0, grown, 0, fieldLength);
+            field = grown;
+        }
+        field[fieldLength++] = (byte) b;
+    }
+
+    private void endField(boolean capture) {
+        if (capture) {
+            fields.add(new String(field, 0, fieldLength, StandardCharsets.UTF_8));
+        }
+        fieldLength = 0;
+    }
+
+    private int read() throws IOException {
+        if (pos == limit && !fill()) {
+            return -1;
+        }
+        offset++;
+        return buffer[pos++] & 0xFF;
+    }
+
+    private int peek() throws IOException {
+        if (pos == limit && !fill()) {
+            return -1;
+        }
+        return buffer[pos] & 0xFF;
+    }
+
+    private boolean fill() throws IOException {
+        if (remaining <= 0) {
+            return false;
+        }
+        int n = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+        if (n <= 0) {
+            remaining = 0;
+            return false;
+        }
+        pos = 0;
+        limit = n;
+        remaining -= n;
+        return true;
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.imports;
+
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Optional dedup stage that finds rows repeating an earlier profile id or email.
+ *
+ * Runs two sequential passes over the rows before the import:
+ * <ol>
+ *   <li>Every valid row's id and email is reduced to a 64-bit fingerprint and
+ *       offered to a Bloom filter. Only fingerprints the filter has maybe seen
+ *       before become candidates, kept in a primitive LongHashSet.</li>
+ *   <li>Rows whose fingerprint is a candidate are checked against the exact
+ *       keys. This removes Bloom and fingerprint false positives, so a row is
+ *       only reported as a duplicate if its id or email repeats a row that
+ *       is itself imported. A row rejected as a duplicate registers neither
+ *       of its keys.</li>
+ * </ol>
+ * Memory is about {@code -ln(p) / ln(2)^2} bits per key for the filter, plus
+ * space proportional to the duplicates and false positives, never a String per row.
+ */
+public final class DuplicateDetector {
+
+    /** Default Bloom filter false-positive rate. */
+    public static final double DEFAULT_FALSE_POSITIVE_RATE = 0.01;
+
+    private static final long ID_SEED = 0x9e3779b97f4a7c15L;
+    private static final long EMAIL_SEED = 0xc2b2ae3d27d4eb4fL;
+    // Rough heap cost of a short String held in a HashSet
+    private static final long EXACT_KEY_OVERHEAD_BYTES = 88;
+
+    /**
+     * Visits rows in file order.
+     */
+    @FunctionalInterface
+    public interface RowScan {
+        void forEachRow(RowVisitor visitor);
+    }
+
+    /**
+     * Receives one row during a scan.
+     */
+    @FunctionalInterface
+    public interface RowVisitor {
+        void visit(long rowNumber, String[] row);
+    }
+
+    private final boolean offHeap;
+    private final double falsePositiveRate;
+
+    /**
+     * Creates a detector with an on-heap table and the default false-positive rate.
+     */
+    public DuplicateDetector() {
+        this(false, DEFAULT_FALSE_POSITIVE_RATE);
+    }
+
+    /**
+     * Creates a detector.
+     *
+     * @param offHeap Whether fingerprint tables are allocated off-heap
+     * @param falsePositiveRate Bloom filter false-positive rate, between 0 and 1
+     * @throws IllegalArgumentException if falsePositiveRate is out of range
+     */
+    public DuplicateDetector(boolean offHeap, double falsePositiveRate) {
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("falsePositiveRate must be between 0 and 1");
+        }
+        this.offHeap = offHeap;
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    /**
+     * Scans the rows twice and reports which ones are duplicates.
+     *
+     * @param expectedRows Estimated row count, used to size the Bloom filter
+     * @param scan Replays the rows in file order; called exactly twice
+     * @return The duplicate report
+     */
+    public DuplicateReport detect(long expectedRows, RowScan scan) {
+        BloomFilter bloom = new BloomFilter(2 * Math.max(expectedRows, 1), falsePositiveRate);
+        LongHashSet candidates = new LongHashSet(Math.max(16, (long) (2 * expectedRows * falsePositiveRate)), offHeap);
+        long[] rowsScanned = new long[1];
+
+        scan.forEachRow((rowNumber, row) -> {
+            rowsScanned[0]++;
+            if (ProfileRowValidator.validate(row) != null) {
+                return;
+            }
+            long idFingerprint = fingerprint(idKey(row), ID_SEED);
+            long emailFingerprint = fingerprint(emailKey(row), EMAIL_SEED);
+            if (!bloom.put(idFingerprint)) {
+                candidates.add(idFingerprint);
+            }
+            if (!bloom.put(emailFingerprint)) {
+                candidates.add(emailFingerprint);
+            }
+        });
+
+        Set<String> seenIds = new HashSet<>();
+        Set<String> seenEmails = new HashSet<>();
+        LongHashSet duplicateIdRows = new LongHashSet(16, offHeap);
+        LongHashSet duplicateEmailRows = new LongHashSet(16, offHeap);
+
+        scan.forEachRow((rowNumber, row) -> {
+            if (ProfileRowValidator.validate(row) != null) {
+                return;
+            }
+            String id = idKey(row);
+            String email = emailKey(row);
+            boolean idCandidate = candidates.contains(fingerprint(id, ID_SEED));
+            boolean emailCandidate = candidates.contains(fingerprint(email, EMAIL_SEED));
+            boolean duplicateId = idCandidate && seenIds.contains(id);
+            boolean duplicateEmail = emailCandidate && seenEmails.contains(email);
+            if (duplicateId) {
+                duplicateIdRows.add(rowNumber);
+            }
+            if (duplicateEmail) {
+                duplicateEmailRows.add(rowNumber);
+            }
+            // A rejected row is never imported, so its keys must not block later rows
+            if (!duplicateId && !duplicateEmail) {
+                if (idCandidate) {
+                    seenIds.add(id);
+                }
+                if (emailCandidate) {
+                    seenEmails.add(email);
+                }
+            }
+        });
+
+        long verificationBytes = (seenIds.size() + seenEmails.size()) * EXACT_KEY_OVERHEAD_BYTES;
+        long memoryBytes = bloom.memoryBytes() + candidates.memoryBytes() + verificationBytes
+                + duplicateIdRows.memoryBytes() + duplicateEmailRows.memoryBytes();
+        return new DuplicateReport(rowsScanned[0], duplicateIdRows, duplicateEmailRows,
+                candidates.size(), memoryBytes);
+    }
+
+    private static String idKey(String[] row) {
+        return row[0].trim();
+    }
+
+    private static String emailKey(String[] row) {
+        return row[1].trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 64-bit FNV-1a over the key's chars, finished with a Murmur3 mix.
+     */
+    static long fingerprint(String key, long seed) {
+        long h = 0xcbf29ce484222325L ^ seed;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return LongHashSet.mix(h);
+    }
+}
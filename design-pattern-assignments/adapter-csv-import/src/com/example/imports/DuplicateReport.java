@@ -0,0 +1,87 @@
+package com.example.imports;
+
+/**
+ * Result of a DuplicateDetector run: which rows repeat an earlier id or email,
+ * and how much memory the detection took.
+ *
+ * Read-only once built, so parallel import workers can share one instance.
+ */
+public final class DuplicateReport {
+
+    private final long rowsScanned;
+    private final LongHashSet duplicateIdRows;
+    private final LongHashSet duplicateEmailRows;
+    private final long candidateCount;
+    private final long memoryBytes;
+
+    DuplicateReport(long rowsScanned, LongHashSet duplicateIdRows, LongHashSet duplicateEmailRows,
+                    long candidateCount, long memoryBytes) {
+        this.rowsScanned = rowsScanned;
+        this.duplicateIdRows = duplicateIdRows;
+        this.duplicateEmailRows = duplicateEmailRows;
+        this.candidateCount = candidateCount;
+        this.memoryBytes = memoryBytes;
+    }
+
+    /**
+     * Checks whether a row repeats an earlier id or email.
+     *
+     * @param rowNumber The 1-based row number in the original file
+     * @return The duplicate reason, or null if the row is the first of its kind
+     */
+    public RejectReason duplicateReason(long rowNumber) {
+        if (duplicateIdRows.contains(rowNumber)) {
+            return RejectReason.DUPLICATE_ID;
+        }
+        if (duplicateEmailRows.contains(rowNumber)) {
+            return RejectReason.DUPLICATE_EMAIL;
+        }
+        return null;
+    }
+
+    public long getRowsScanned() {
+        return rowsScanned;
+    }
+
+    public long getDuplicateIdCount() {
+        return duplicateIdRows.size();
+    }
+
+    public long getDuplicateEmailCount() {
+        return duplicateEmailRows.size();
+    }
+
+    /**
+     * Gets the number of fingerprints that needed exact verification.
+     *
+     * @return The candidate count
+     */
+    public long getCandidateCount() {
+        return candidateCount;
+    }
+
+    /**
+     * Gets the peak memory used by the detection structures (exact keys are estimated).
+     *
+     * @return Memory in bytes
+     */
+    public long getMemoryBytes() {
+        return memoryBytes;
+    }
+
+    /**
+     * Gets the memory cost normalised to one million rows.
+     *
+     * @return Bytes per million rows scanned
+     */
+    public long getBytesPerMillionRows() {
+        return rowsScanned == 0 ? 0 : (long) (memoryBytes * (1_000_000.0 / rowsScanned));
+    }
+
+    @Override
+    public String toString() {
+        return "Dedup: scanned " + rowsScanned + " rows, " + getDuplicateIdCount() + " duplicate ids, "
+                + getDuplicateEmailCount() + " duplicate emails, " + candidateCount + " candidates verified, "
+                + (memoryBytes / 1024) + " KB (" + (getBytesPerMillionRows() / 1024) + " KB per million rows)";
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.imports;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+
+/**
+ * Progress of an import, persisted so an interrupted run can resume.
+ *
+ * Records the byte offset just past the last committed record, the next row
+ * number and the counts so far. The input file's size and modification time
+ * are stored too, so a checkpoint is never applied to a different file.
+ * Saving writes a temporary file and renames it over the old checkpoint, so a
+ * crash mid-save leaves the previous checkpoint intact.
+ */
+public final class ImportCheckpoint {
+
+    private final long fileSize;
+    private final long lastModified;
+    private final long offset;
+    private final long nextRow;
+    private final long successCount;
+    private final Map<RejectReason, Long> rejectCounts;
+
+    /**
+     * Constructor for ImportCheckpoint.
+     *
+     * @param fileSize Size of the input file
+     * @param lastModified Modification time of the input file, in millis
+     * @param offset Byte offset just past the last committed record
+     * @param nextRow Row number of the first record after the offset
+     * @param successCount Profiles created so far
+     * @param rejectCounts Rejected rows so far, by reason
+     */
+    public ImportCheckpoint(long fileSize, long lastModified, long offset, long nextRow, long successCount,
+                            Map<RejectReason, Long> rejectCounts) {
+        this.fileSize = fileSize;
+        this.lastModified = lastModified;
+        this.offset = offset;
+        this.nextRow = nextRow;
+        this.successCount = successCount;
+        this.rejectCounts = new EnumMap<>(RejectReason.class);
+        this.rejectCounts.putAll(Objects.requireNonNull(rejectCounts, "rejectCounts cannot be null"));
+    }
+
+    /**
+     * Builds a checkpoint for the current state of an import.
+     *
+     * @param csvFile The input file
+     * @param offset Byte offset just past the last committed record
+     * @param nextRow Row number of the next record
+     * @param successCount Profiles created so far
+     * @param rejects Rejects so far
+     * @return The checkpoint
+     */
+    static ImportCheckpoint of(Path csvFile, long offset, long nextRow, long successCount, RejectSummary rejects) {
+        Map<RejectReason, Long> counts = new EnumMap<>(RejectReason.class);
+        for (RejectReason reason : RejectReason.values()) {
+            counts.put(reason, rejects.getCount(reason));
+        }
+        try {
+            return new ImportCheckpoint(Files.size(csvFile), Files.getLastModifiedTime(csvFile).toMillis(),
+                    offset, nextRow, successCount, counts);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Loads a checkpoint.
+     *
+     * @param checkpointFile The checkpoint file
+     * @return The checkpoint, or null if the file does not exist
+     * @throws UncheckedIOException if the file cannot be read
+     */
+    public static ImportCheckpoint load(Path checkpointFile) {
+        if (!Files.exists(checkpointFile)) {
+            return null;
+        }
+        Properties props = new Properties();
+        try (Reader reader = Files.newBufferedReader(checkpointFile, StandardCharsets.UTF_8)) {
+            props.load(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Map<RejectReason, Long> counts = new EnumMap<>(RejectReason.class);
+        for (RejectReason reason : RejectReason.values()) {
+            counts.put(reason, Long.parseLong(props.getProperty("rejects." + reason.name(), "0")));
+        }
+        return new ImportCheckpoint(
+                Long.parseLong(props.getProperty("fileSize")),
+                Long.parseLong(props.getProperty("lastModified")),
+                Long.parseLong(props.getProperty("offset")),
+                Long.parseLong(props.getProperty("nextRow")),
+                Long.parseLong(props.getProperty("successCount")),
+                counts);
+    }
+
+    /**
+     * Atomically writes this checkpoint.
+     *
+     * @param checkpointFile The checkpoint file
+     * @throws UncheckedIOException if the file cannot be written
+     */
+    public void save(Path checkpointFile) {
+        Properties props = new Properties();
+        props.setProperty("fileSize", Long.toString(fileSize));
+        props.setProperty("lastModified", Long.toString(lastModified));
+        props.setProperty("offset", Long.toString(offset));
+        props.setProperty("nextRow", Long.toString(nextRow));
+        props.setProperty("successCount", Long.toString(successCount));
+        for (Map.Entry<RejectReason, Long> e : rejectCounts.entrySet()) {
+            props.setProperty("rejects." + e.getKey().name(), Long.toString(e.getValue()));
+        }
+        Path tmp = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+        try {
+            try (Writer writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                props.store(writer, "CSV import checkpoint");
+            }
+            Files.move(tmp, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Checks whether this checkpoint was taken for the given file as it is now.
+     *
+     * @param csvFile The input file
+     * @return true if size and modification time match
+     */
+    boolean matches(Path csvFile) {
+        try {
+            return Files.size(csvFile) == fileSize
+                    && Files.getLastModifiedTime(csvFile).toMillis() == lastModified;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public long getNextRow() {
+        return nextRow;
+    }
+
+    public long getSuccessCount() {
+        return successCount;
+    }
+
+    public long getRejectCount(RejectReason reason) {
+        return rejectCounts.getOrDefault(reason, 0L);
+    }
+
+    @Override
+    public String toString() {
+        return "ImportCheckpoint{offset=" + offset + ", nextRow=" + nextRow + ", successCount=" + successCount + "}";
+    }
+}
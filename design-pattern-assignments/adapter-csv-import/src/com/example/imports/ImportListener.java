@@ -0,0 +1,29 @@
+package com.example.imports;
+
+/**
+ * Receives live progress while an import runs.
+ *
+ * Callbacks arrive one at a time on a background reporting thread, never on
+ * the import's own threads, so a slow listener cannot stall the import.
+ * {@link #onProgress} is called at a fixed interval; {@link #onComplete} comes
+ * last, and the importer waits for it before returning.
+ */
+@FunctionalInterface
+public interface ImportListener {
+
+    /**
+     * Called periodically with the latest progress.
+     *
+     * @param progress Snapshot of the import so far
+     */
+    void onProgress(ImportProgress progress);
+
+    /**
+     * Called once after the import finished successfully.
+     *
+     * @param progress Final snapshot
+     */
+    default void onComplete(ImportProgress progress) {
+        onProgress(progress);
+    }
+}
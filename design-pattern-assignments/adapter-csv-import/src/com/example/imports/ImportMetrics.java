@@ -0,0 +1,253 @@
+package com.example.imports;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live counters for one import run.
+ *
+ * The hot loop never touches shared state per row: each thread records into
+ * its own {@link Recorder}, which publishes to the shared LongAdders every
+ * {@value #PUBLISH_INTERVAL} rows. Parse and validation times are measured on
+ * one row in {@value #TIMING_SAMPLE_RATE} and scaled up, so the clock is read
+ * rarely. Service time is measured per batch, which is already cheap.
+ */
+final class ImportMetrics {
+
+    /** One row in this many is timed; must be a power of two. */
+    static final int TIMING_SAMPLE_RATE = 64;
+    private static final int PUBLISH_INTERVAL = 1_024;
+    static final long DEFAULT_REPORT_INTERVAL_MILLIS = 1_000;
+
+    private final long startNanos = System.nanoTime();
+    private final long totalBytes;
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder success = new LongAdder();
+    private final LongAdder[] rejects = new LongAdder[RejectReason.values().length];
+    private final LongAdder parseNanos = new LongAdder();
+    private final LongAdder validateNanos = new LongAdder();
+    private final LongAdder serviceNanos = new LongAdder();
+    // Carried over from earlier runs; counted in the totals but not in this run's rates
+    private long restoredRows;
+    private long restoredBytes;
+
+    ImportMetrics(long totalBytes) {
+        this.totalBytes = totalBytes;
+        for (int i = 0; i < rejects.length; i++) {
+            rejects[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Creates a recorder for one thread.
+     *
+     * @param startOffset Input offset the thread starts reading at
+     * @return A new recorder
+     */
+    Recorder newRecorder(long startOffset) {
+        return new Recorder(startOffset);
+    }
+
+    /**
+     * Adds counts carried over from an earlier run, e.g. when resuming. Call
+     * before reporting starts. Restored rows and bytes count towards progress
+     * but not towards rows/s and MB/s, which only measure this run.
+     *
+     * @param checkpoint The checkpoint being resumed
+     */
+    void restore(ImportCheckpoint checkpoint) {
+        restoredBytes = checkpoint.getOffset();
+        restoredRows = checkpoint.getNextRow() - 1;
+        bytes.add(restoredBytes);
+        rows.add(restoredRows);
+        success.add(checkpoint.getSuccessCount());
+        for (RejectReason reason : RejectReason.values()) {
+            rejects[reason.ordinal()].add(checkpoint.getRejectCount(reason));
+        }
+    }
+
+    /**
+     * Takes a consistent-enough snapshot of the shared counters.
+     *
+     * @param complete Whether the import has finished
+     * @return The snapshot
+     */
+    ImportProgress snapshot(boolean complete) {
+        long[] rejectCounts = new long[rejects.length];
+        for (int i = 0; i < rejects.length; i++) {
+            rejectCounts[i] = rejects[i].sum();
+        }
+        return new ImportProgress(System.nanoTime() - startNanos, rows.sum(), bytes.sum(), totalBytes,
+                restoredRows, restoredBytes, success.sum(), rejectCounts,
+                parseNanos.sum(), validateNanos.sum(), serviceNanos.sum(), complete);
+    }
+
+    /**
+     * Starts periodic reporting to a listener on a daemon thread.
+     *
+     * @param listener The listener, or null for no reporting
+     * @return A handle that stops reporting when closed
+     */
+    Reporter startReporting(ImportListener listener) {
+        return new Reporter(listener);
+    }
+
+    /**
+     * Per-thread recorder; not thread-safe.
+     */
+    final class Recorder {
+        private long lastOffset;
+        private long localRows;
+        private long localBytes;
+        private long localSuccess;
+        private final long[] localRejects = new long[rejects.length];
+        private long localParseNanos;
+        private long localValidateNanos;
+        private long localServiceNanos;
+        private long seen;
+        private boolean sampled;
+
+        private Recorder(long startOffset) {
+            this.lastOffset = startOffset;
+        }
+
+        /**
+         * Marks the start of a row and decides whether it is timed.
+         *
+         * @return A start timestamp, or 0 if this row is not timed
+         */
+        long startRow() {
+            sampled = (seen++ & (TIMING_SAMPLE_RATE - 1)) == 0;
+            return sampled ? System.nanoTime() : 0L;
+        }
+
+        /**
+         * Records a parsed record.
+         *
+         * @param start Value returned by {@link #startRow()}, or 0 if parsing was not timed
+         * @param offset Input offset just past the record
+         */
+        void parsed(long start, long offset) {
+            if (start != 0L) {
+                localParseNanos += (System.nanoTime() - start) * TIMING_SAMPLE_RATE;
+            }
+            localRows++;
+            localBytes += offset - lastOffset;
+            lastOffset = offset;
+            if (localRows >= PUBLISH_INTERVAL) {
+                publish();
+            }
+        }
+
+        /**
+         * Adds parse time measured outside the row loop, e.g. reading a whole file up front.
+         *
+         * @param nanos Parse time in nanoseconds
+         */
+        void parse(long nanos) {
+            localParseNanos += nanos;
+        }
+
+        /**
+         * Marks the start of validating the current row.
+         *
+         * @return A start timestamp, or 0 if this row is not timed
+         */
+        long startValidate() {
+            return sampled ? System.nanoTime() : 0L;
+        }
+
+        void endValidate(long start) {
+            if (start != 0L) {
+                localValidateNanos += (System.nanoTime() - start) * TIMING_SAMPLE_RATE;
+            }
+        }
+
+        void service(long nanos) {
+            localServiceNanos += nanos;
+        }
+
+        void success(long count) {
+            localSuccess += count;
+        }
+
+        void reject(RejectReason reason) {
+            localRejects[reason.ordinal()]++;
+        }
+
+        /**
+         * Pushes local counts to the shared counters.
+         */
+        void publish() {
+            rows.add(localRows);
+            bytes.add(localBytes);
+            success.add(localSuccess);
+            for (int i = 0; i < localRejects.length; i++) {
+                if (localRejects[i] != 0) {
+                    rejects[i].add(localRejects[i]);
+                    localRejects[i] = 0;
+                }
+            }
+            parseNanos.add(localParseNanos);
+            validateNanos.add(localValidateNanos);
+            serviceNanos.add(localServiceNanos);
+            localRows = 0;
+            localBytes = 0;
+            localSuccess = 0;
+            localParseNanos = 0;
+            localValidateNanos = 0;
+            localServiceNanos = 0;
+        }
+    }
+
+    /**
+     * Handle for periodic reporting.
+     */
+    final class Reporter implements AutoCloseable {
+        private final ImportListener listener;
+        private final ScheduledExecutorService scheduler;
+
+        private Reporter(ImportListener listener) {
+            this.listener = listener;
+            if (listener == null) {
+                this.scheduler = null;
+                return;
+            }
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "import-progress");
+                t.setDaemon(true);
+                return t;
+            });
+            scheduler.scheduleAtFixedRate(() -> listener.onProgress(snapshot(false)),
+                    DEFAULT_REPORT_INTERVAL_MILLIS, DEFAULT_REPORT_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        }
+
+        /**
+         * Stops periodic reports and sends the final snapshot on the reporting
+         * thread, after any report already in progress, then waits for it.
+         */
+        void complete() {
+            if (scheduler == null) {
+                return;
+            }
+            scheduler.execute(() -> listener.onComplete(snapshot(true)));
+            // Cancels the periodic task but still runs onComplete
+            scheduler.shutdown();
+            try {
+                scheduler.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void close() {
+            if (scheduler != null) {
+                scheduler.shutdownNow();
+            }
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.imports;
+
+import java.util.Arrays;
+
+/**
+ * Immutable snapshot of an import's progress and where its time went.
+ *
+ * Stage times are summed over all worker threads, so with several workers
+ * they can exceed the elapsed wall-clock time; compare them with each other
+ * to find the bottleneck stage.
+ *
+ * A resumed import counts rows and bytes committed by earlier runs in its
+ * totals and percentage, but its rates only cover the work done in this run.
+ */
+public final class ImportProgress {
+
+    private final long elapsedNanos;
+    private final long rowsProcessed;
+    private final long bytesRead;
+    private final long totalBytes;
+    private final long restoredRows;
+    private final long restoredBytes;
+    private final long successCount;
+    private final long[] rejectCounts;
+    private final long parseNanos;
+    private final long validateNanos;
+    private final long serviceNanos;
+    private final boolean complete;
+
+    ImportProgress(long elapsedNanos, long rowsProcessed, long bytesRead, long totalBytes, long restoredRows,
+                   long restoredBytes, long successCount, long[] rejectCounts, long parseNanos, long validateNanos,
+                   long serviceNanos, boolean complete) {
+        this.elapsedNanos = elapsedNanos;
+        this.rowsProcessed = rowsProcessed;
+        this.bytesRead = bytesRead;
+        this.totalBytes = totalBytes;
+        this.restoredRows = restoredRows;
+        this.restoredBytes = restoredBytes;
+        this.successCount = successCount;
+        this.rejectCounts = rejectCounts.clone();
+        this.parseNanos = parseNanos;
+        this.validateNanos = validateNanos;
+        this.serviceNanos = serviceNanos;
+        this.complete = complete;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public long getRowsProcessed() {
+        return rowsProcessed;
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * Gets the expected input size; an estimate for gzip input.
+     *
+     * @return Total bytes, or 0 if unknown
+     */
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public long getSuccessCount() {
+        return successCount;
+    }
+
+    public long getRejectCount(RejectReason reason) {
+        return rejectCounts[reason.ordinal()];
+    }
+
+    public long getTotalRejects() {
+        return Arrays.stream(rejectCounts).sum();
+    }
+
+    /**
+     * Gets the sampled time spent parsing records.
+     *
+     * @return Parse time in nanoseconds, summed over threads
+     */
+    public long getParseNanos() {
+        return parseNanos;
+    }
+
+    /**
+     * Gets the sampled time spent validating rows (including dedup lookups).
+     *
+     * @return Validation time in nanoseconds, summed over threads
+     */
+    public long getValidateNanos() {
+        return validateNanos;
+    }
+
+    /**
+     * Gets the time spent inside ProfileService calls.
+     *
+     * @return Service time in nanoseconds, summed over threads
+     */
+    public long getServiceNanos() {
+        return serviceNanos;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Gets the completion percentage by input offset.
+     *
+     * @return 0 to 100; capped below 100 until the import completes
+     */
+    public double getPercentComplete() {
+        if (complete) {
+            return 100.0;
+        }
+        if (totalBytes <= 0) {
+            return 0.0;
+        }
+        return Math.min(99.9, 100.0 * bytesRead / totalBytes);
+    }
+
+    /**
+     * Gets the rows carried over from an earlier, interrupted run.
+     *
+     * @return Restored rows, 0 for a fresh import
+     */
+    public long getRestoredRows() {
+        return restoredRows;
+    }
+
+    /**
+     * Gets the rows processed per second by this run, excluding restored rows.
+     *
+     * @return Rows per second
+     */
+    public double getRowsPerSecond() {
+        return perSecond(rowsProcessed - restoredRows);
+    }
+
+    /**
+     * Gets the bytes read per second by this run, excluding the restored offset.
+     *
+     * @return Bytes per second
+     */
+    public double getBytesPerSecond() {
+        return perSecond(bytesRead - restoredBytes);
+    }
+
+    private double perSecond(long count) {
+        return elapsedNanos == 0 ? 0.0 : count * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        long stages = Math.max(1, parseNanos + validateNanos + serviceNanos);
+        return String.format("[%5.1f%%] %d rows (%.0f rows/s, %.1f MB/s), %d imported, %d rejected;"
+                        + " parse %d%% / validate %d%% / service %d%%",
+                getPercentComplete(), rowsProcessed, getRowsPerSecond(), getBytesPerSecond() / (1024 * 1024),
+                successCount, getTotalRejects(),
+                100 * parseNanos / stages, 100 * validateNanos / stages, 100 * serviceNanos / stages);
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.imports;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Outcome of a detailed import: how many profiles were created and a summary
+ * of the rejected rows, with a bounded sample of their original row numbers.
+ */
+public final class ImportResult {
+
+    private final long successCount;
+    private final RejectSummary rejects;
+    private final DuplicateReport duplicates;
+
+    /**
+     * Constructor for ImportResult.
+     *
+     * @param successCount Number of profiles created
+     * @param rejects Summary of rejected rows
+     * @throws NullPointerException if rejects is null
+     */
+    public ImportResult(long successCount, RejectSummary rejects) {
+        this(successCount, rejects, null);
+    }
+
+    /**
+     * Constructor for ImportResult with a dedup report.
+     *
+     * @param successCount Number of profiles created
+     * @param rejects Summary of rejected rows
+     * @param duplicates Dedup report, or null if dedup was not enabled
+     * @throws NullPointerException if rejects is null
+     */
+    public ImportResult(long successCount, RejectSummary rejects, DuplicateReport duplicates) {
+        this.successCount = successCount;
+        this.rejects = Objects.requireNonNull(rejects, "rejects cannot be null");
+        this.duplicates = duplicates;
+    }
+
+    /**
+     * Gets the number of profiles created.
+     *
+     * @return The success count
+     */
+    public long getSuccessCount() {
+        return successCount;
+    }
+
+    /**
+     * Gets the reject counters by reason.
+     *
+     * @return The reject summary
+     */
+    public RejectSummary getRejects() {
+        return rejects;
+    }
+
+    /**
+     * Gets the dedup report.
+     *
+     * @return The report, or null if dedup was not enabled
+     */
+    public DuplicateReport getDuplicates() {
+        return duplicates;
+    }
+
+    /**
+     * Gets the sampled rejected rows.
+     *
+     * @return Example rejections in ascending row order
+     */
+    public List<Rejection> getRejections() {
+        return rejects.getSamples();
+    }
+
+    @Override
+    public String toString() {
+        return "ImportResult{successCount=" + successCount + ", rejected=" + rejects.getTotal() + "}";
+    }
+
+    /**
+     * A rejected row and why it was rejected.
+     */
+    public static final class Rejection {
+        private final long row;
+        private final RejectReason reason;
+        private final String detail;
+
+        /**
+         * Constructor for Rejection.
+         *
+         * @param row The 1-based row number in the original file
+         * @param reason Why the row was rejected
+         * @param detail Optional extra detail, may be null
+         */
+        public Rejection(long row, RejectReason reason, String detail) {
+            this.row = row;
+            this.reason = Objects.requireNonNull(reason, "reason cannot be null");
+            this.detail = detail;
+        }
+
+        /**
+         * Gets the 1-based row number in the original file.
+         *
+         * @return The row number
+         */
+        public long getRow() {
+            return row;
+        }
+
+        /**
+         * Gets the rejection reason.
+         *
+         * @return The reason
+         */
+        public RejectReason getReason() {
+            return reason;
+        }
+
+        /**
+         * Gets the extra detail, such as a service error message.
+         *
+         * @return The detail, or null
+         */
+        public String getDetail() {
+            return detail;
+        }
+
+        @Override
+        public String toString() {
+            return "row " + row + ": " + reason.getDescription() + (detail == null ? "" : " (" + detail + ")");
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.imports;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+
+/**
+ * Open-addressing hash set of primitive longs with linear probing.
+ *
+ * Costs 8 bytes per slot and no per-entry objects, unlike a HashSet of boxed
+ * or String keys. The table can live on the Java heap or in a direct
+ * (off-heap) buffer, which keeps a large set out of the garbage collector's way.
+ * Not thread-safe for writers; concurrent reads are fine once fully built.
+ */
+final class LongHashSet {
+
+    private static final long EMPTY = 0L;
+    private static final double MAX_LOAD = 0.75;
+    private static final int MIN_CAPACITY = 16;
+    // A direct ByteBuffer is limited to Integer.MAX_VALUE bytes
+    private static final int MAX_OFF_HEAP_CAPACITY = 1 << 27;
+    private static final int MAX_HEAP_CAPACITY = 1 << 30;
+
+    private final boolean offHeap;
+    private LongBuffer table;
+    private int mask;
+    private int size;
+    private int resizeThreshold;
+    // 0 marks an empty slot, so the key 0 is tracked separately
+    private boolean containsZero;
+
+    /**
+     * Creates a set sized for the expected number of keys.
+     *
+     * @param expectedSize Expected number of keys; the set grows beyond it if needed
+     * @param offHeap Whether to allocate the table in a direct buffer
+     */
+    LongHashSet(long expectedSize, boolean offHeap) {
+        this.offHeap = offHeap;
+        allocate(capacityFor(expectedSize));
+    }
+
+    /**
+     * Adds a key.
+     *
+     * @param key The key
+     * @return true if the key was not already present
+     */
+    boolean add(long key) {
+        if (key == EMPTY) {
+            boolean added = !containsZero;
+            containsZero = true;
+            return added;
+        }
+        int i = slot(key);
+        while (true) {
+            long current = table.get(i);
+            if (current == EMPTY) {
+                table.put(i, key);
+                if (++size > resizeThreshold) {
+                    grow();
+                }
+                return true;
+            }
+            if (current == key) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    /**
+     * Checks whether a key is present.
+     *
+     * @param key The key
+     * @return true if present
+     */
+    boolean contains(long key) {
+        if (key == EMPTY) {
+            return containsZero;
+        }
+        int i = slot(key);
+        while (true) {
+            long current = table.get(i);
+            if (current == key) {
+                return true;
+            }
+            if (current == EMPTY) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    /**
+     * Gets the number of keys.
+     *
+     * @return The size
+     */
+    long size() {
+        return size + (containsZero ? 1 : 0);
+    }
+
+    /**
+     * Gets the bytes held by the table.
+     *
+     * @return Table size in bytes
+     */
+    long memoryBytes() {
+        return (long) table.capacity() * Long.BYTES;
+    }
+
+    private int slot(long key) {
+        return (int) mix(key) & mask;
+    }
+
+    private void grow() {
+        LongBuffer old = table;
+        int oldCapacity = old.capacity();
+        if (oldCapacity >= maxCapacity()) {
+            throw new IllegalStateException("LongHashSet is full at " + size + " keys");
+        }
+        allocate(oldCapacity * 2);
+        size = 0;
+        for (int i = 0; i < oldCapacity; i++) {
+            long key = old.get(i);
+            if (key != EMPTY) {
+                int j = slot(key);
+                while (table.get(j) != EMPTY) {
+                    j = (j + 1) & mask;
+                }
+                table.put(j, key);
+                size++;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        table = offHeap
+                ? ByteBuffer.allocateDirect(capacity * Long.BYTES).order(ByteOrder.nativeOrder()).asLongBuffer()
+                : LongBuffer.allocate(capacity);
+        mask = capacity - 1;
+        // Once the table cannot grow any further, let it fill up instead of failing early
+        resizeThreshold = capacity >= maxCapacity() ? capacity - 1 : (int) (capacity * MAX_LOAD);
+    }
+
+    private int capacityFor(long expectedSize) {
+        long needed = (long) Math.ceil(Math.max(expectedSize, 1) / MAX_LOAD);
+        long capacity = MIN_CAPACITY;
+        while (capacity < needed && capacity < maxCapacity()) {
+            capacity <<= 1;
+        }
+        return (int) capacity;
+    }
+
+    private int maxCapacity() {
+        return offHeap ? MAX_OFF_HEAP_CAPACITY : MAX_HEAP_CAPACITY;
+    }
+
+    /**
+     * Finalizer from MurmurHash3; spreads sequential keys such as row numbers.
+     */
+    static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
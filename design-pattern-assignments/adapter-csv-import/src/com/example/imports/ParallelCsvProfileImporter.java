@@ -0,0 +1,341 @@
+package com.example.imports;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Parallel variant of CsvProfileImporter for large files.
+ *
+ * The file is split into record-aligned byte ranges (quoted newlines are
+ * respected), and each range is parsed, validated and imported on its own
+ * worker. Per-chunk results are merged in file order, so the success count
+ * and the original row numbers of rejected rows match a sequential run.
+ *
+ * Gzip input cannot be split by byte offset, so it is parsed on one thread
+ * (with inflation pipelined on another) and fixed-size runs of rows are handed
+ * to the workers for validation and import instead.
+ *
+ * ProfileService is stateless and is called concurrently from the workers.
+ */
+public class ParallelCsvProfileImporter implements ProfileImporter {
+
+    // More chunks than workers so a slow chunk does not leave cores idle
+    private static final int CHUNKS_PER_WORKER = 4;
+    // Used to size the dedup Bloom filter from the file size
+    private static final int ESTIMATED_BYTES_PER_ROW = 40;
+    // Rows per task when a gzip stream is parsed on one thread
+    private static final int ROWS_PER_TASK = 8_192;
+    // Parsed-but-unimported tasks allowed per worker before the parser waits
+    private static final int TASKS_IN_FLIGHT_PER_WORKER = 2;
+
+    private final ProfileService profileService;
+    private final int parallelism;
+    private final int batchSize;
+    private final int sampleLimit;
+    private final DuplicateDetector duplicateDetector;
+
+    /**
+     * Constructor using one worker per available processor.
+     *
+     * @param profileService The profile service to create profiles
+     * @throws NullPointerException if profileService is null
+     */
+    public ParallelCsvProfileImporter(ProfileService profileService) {
+        this(profileService, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructor with explicit parallelism.
+     *
+     * @param profileService The profile service to create profiles
+     * @param parallelism Number of worker threads
+     * @throws NullPointerException if profileService is null
+     * @throws IllegalArgumentException if parallelism is not positive
+     */
+    public ParallelCsvProfileImporter(ProfileService profileService, int parallelism) {
+        this(profileService, parallelism, ProfileBatcher.DEFAULT_BATCH_SIZE, RejectSummary.DEFAULT_SAMPLE_LIMIT);
+    }
+
+    /**
+     * Constructor with explicit parallelism, batch size and reject sample size.
+     *
+     * @param profileService The profile service to create profiles
+     * @param parallelism Number of worker threads
+     * @param batchSize Rows committed per createProfiles call
+     * @param sampleLimit Example rows kept per reject reason
+     * @throws NullPointerException if profileService is null
+     * @throws IllegalArgumentException if parallelism or batchSize is not positive
+     */
+    public ParallelCsvProfileImporter(ProfileService profileService, int parallelism, int batchSize, int sampleLimit) {
+        this(profileService, parallelism, batchSize, sampleLimit, null);
+    }
+
+    /**
+     * Constructor with all options, including an optional dedup stage.
+     * Dedup runs as a sequential pre-pass so the first occurrence in file order wins.
+     *
+     * @param profileService The profile service to create profiles
+     * @param parallelism Number of worker threads
+     * @param batchSize Rows committed per createProfiles call
+     * @param sampleLimit Example rows kept per reject reason
+     * @param duplicateDetector Rejects repeated ids and emails; null disables dedup
+     * @throws NullPointerException if profileService is null
+     * @throws IllegalArgumentException if parallelism or batchSize is not positive
+     */
+    public ParallelCsvProfileImporter(ProfileService profileService, int parallelism, int batchSize, int sampleLimit,
+                                      DuplicateDetector duplicateDetector) {
+        this.profileService = Objects.requireNonNull(profileService, "profileService cannot be null");
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be positive");
+        }
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+        if (sampleLimit < 0) {
+            throw new IllegalArgumentException("sampleLimit cannot be negative");
+        }
+        this.parallelism = parallelism;
+        this.batchSize = batchSize;
+        this.sampleLimit = sampleLimit;
+        this.duplicateDetector = duplicateDetector;
+    }
+
+    /**
+     * Imports profiles from CSV file in parallel.
+     *
+     * @param csvFile Path to the CSV file
+     * @return Number of successfully imported profiles
+     * @throws NullPointerException if csvFile is null
+     */
+    @Override
+    public int importFrom(Path csvFile) {
+        return importFrom(csvFile, null);
+    }
+
+    /**
+     * Imports profiles in parallel, reporting progress to a listener.
+     *
+     * @param csvFile Path to the CSV file
+     * @param listener Receives periodic progress, may be null
+     * @return Number of successfully imported profiles
+     * @throws NullPointerException if csvFile is null
+     */
+    @Override
+    public int importFrom(Path csvFile, ImportListener listener) {
+        ImportResult result = importDetailed(csvFile, listener);
+        System.out.print(result.getRejects().format());
+        if (result.getDuplicates() != null) {
+            System.out.println(result.getDuplicates());
+        }
+        return Math.toIntExact(result.getSuccessCount());
+    }
+
+    /**
+     * Imports profiles and returns the reject summary instead of printing it.
+     *
+     * @param csvFile Path to the CSV file
+     * @return The merged import result
+     * @throws NullPointerException if csvFile is null
+     * @throws UncheckedIOException if the file cannot be read
+     */
+    public ImportResult importDetailed(Path csvFile) {
+        return importDetailed(csvFile, null);
+    }
+
+    /**
+     * Imports profiles with progress reporting and returns the reject summary.
+     *
+     * @param csvFile Path to the CSV file
+     * @param listener Receives periodic progress, may be null
+     * @return The merged import result
+     * @throws NullPointerException if csvFile is null
+     * @throws UncheckedIOException if the file cannot be read
+     */
+    public ImportResult importDetailed(Path csvFile, ImportListener listener) {
+        Objects.requireNonNull(csvFile, "csvFile cannot be null");
+
+        try {
+            long totalBytes = CsvInputs.estimatedSize(csvFile);
+            ImportMetrics metrics = new ImportMetrics(totalBytes);
+            try (ImportMetrics.Reporter reporter = metrics.startReporting(listener)) {
+                DuplicateReport duplicates = null;
+                if (duplicateDetector != null) {
+                    long expectedRows = totalBytes / ESTIMATED_BYTES_PER_ROW;
+                    duplicates = duplicateDetector.detect(expectedRows, visitor -> scanRows(csvFile, visitor));
+                }
+                ImportResult result = CsvInputs.isGzip(csvFile)
+                        ? importStream(csvFile, duplicates, metrics)
+                        : importChunks(csvFile, duplicates, metrics);
+                reporter.complete();
+                return result;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private ImportResult importChunks(Path csvFile, DuplicateReport duplicates, ImportMetrics metrics)
+            throws IOException {
+        List<CsvChunker.Chunk> chunks = CsvChunker.split(csvFile, parallelism * CHUNKS_PER_WORKER);
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(parallelism, Math.max(1, chunks.size())));
+        try {
+            List<Future<ImportResult>> futures = new ArrayList<>(chunks.size());
+            for (CsvChunker.Chunk chunk : chunks) {
+                futures.add(pool.submit(() -> importChunk(csvFile, chunk, duplicates, metrics)));
+            }
+
+            ResultMerger merger = new ResultMerger();
+            for (Future<ImportResult> future : futures) {
+                merger.add(await(future));
+            }
+            return merger.result(duplicates);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private ImportResult importStream(Path csvFile, DuplicateReport duplicates, ImportMetrics metrics)
+            throws IOException {
+        ExecutorService pool = Executors.newFixedThreadPool(parallelism);
+        try (InputStream in = CsvInputs.open(csvFile)) {
+            CsvRecordParser parser = new CsvRecordParser(in);
+            ImportMetrics.Recorder parseRecorder = metrics.newRecorder(0);
+            Deque<Future<ImportResult>> inFlight = new ArrayDeque<>();
+            ResultMerger merger = new ResultMerger();
+
+            long rowNumber = 1;
+            List<String[]> rows = new ArrayList<>(ROWS_PER_TASK);
+            long firstRow = rowNumber;
+            while (true) {
+                long start = parseRecorder.startRow();
+                String[] row = parser.next();
+                if (row == null) {
+                    break;
+                }
+                parseRecorder.parsed(start, parser.offset());
+                rows.add(row);
+                rowNumber++;
+                if (rows.size() == ROWS_PER_TASK) {
+                    inFlight.add(submitRows(pool, rows, firstRow, duplicates, metrics));
+                    rows = new ArrayList<>(ROWS_PER_TASK);
+                    firstRow = rowNumber;
+                    // Bound memory: wait for the oldest task, which also keeps merges in file order
+                    if (inFlight.size() >= parallelism * TASKS_IN_FLIGHT_PER_WORKER) {
+                        merger.add(await(inFlight.poll()));
+                    }
+                }
+            }
+            parseRecorder.publish();
+            if (!rows.isEmpty()) {
+                inFlight.add(submitRows(pool, rows, firstRow, duplicates, metrics));
+            }
+            while (!inFlight.isEmpty()) {
+                merger.add(await(inFlight.poll()));
+            }
+            return merger.result(duplicates);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private Future<ImportResult> submitRows(ExecutorService pool, List<String[]> rows, long firstRow,
+                                            DuplicateReport duplicates, ImportMetrics metrics) {
+        return pool.submit(() -> {
+            // Rows and bytes were counted by the parsing thread; this recorder only sees validation and service
+            ImportMetrics.Recorder recorder = metrics.newRecorder(0);
+            ProfileBatcher batcher = new ProfileBatcher(profileService, batchSize, sampleLimit, duplicates, recorder);
+            long rowNumber = firstRow;
+            for (String[] row : rows) {
+                recorder.startRow();
+                batcher.accept(rowNumber++, row);
+            }
+            return batcher.finish();
+        });
+    }
+
+    /**
+     * Folds per-task results together in file order.
+     */
+    private final class ResultMerger {
+        private long successCount;
+        private final RejectSummary rejects = new RejectSummary(sampleLimit);
+
+        void add(ImportResult part) {
+            successCount += part.getSuccessCount();
+            rejects.merge(part.getRejects());
+        }
+
+        ImportResult result(DuplicateReport duplicates) {
+            return new ImportResult(successCount, rejects, duplicates);
+        }
+    }
+
+    private ImportResult importChunk(Path csvFile, CsvChunker.Chunk chunk, DuplicateReport duplicates,
+                                     ImportMetrics metrics) throws IOException {
+        ImportMetrics.Recorder recorder = metrics.newRecorder(chunk.getStart());
+        ProfileBatcher batcher = new ProfileBatcher(profileService, batchSize, sampleLimit, duplicates, recorder);
+
+        try (FileChannel channel = FileChannel.open(csvFile, StandardOpenOption.READ)) {
+            channel.position(chunk.getStart());
+            InputStream in = Channels.newInputStream(channel);
+            CsvRecordParser parser = new CsvRecordParser(in, chunk.getStart(), chunk.getLength());
+
+            long rowNumber = chunk.getFirstRow();
+            while (true) {
+                long start = recorder.startRow();
+                String[] row = parser.next();
+                if (row == null) {
+                    break;
+                }
+                recorder.parsed(start, parser.offset());
+                batcher.accept(rowNumber++, row);
+            }
+        }
+        return batcher.finish();
+    }
+
+    private static void scanRows(Path csvFile, DuplicateDetector.RowVisitor visitor) {
+        try (InputStream in = CsvInputs.open(csvFile)) {
+            CsvRecordParser parser = new CsvRecordParser(in);
+            long rowNumber = 1;
+            String[] row;
+            while ((row = parser.next()) != null) {
+                visitor.visit(rowNumber++, row);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static ImportResult await(Future<ImportResult> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("import interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw new UncheckedIOException((IOException) cause);
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.imports;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Gzip-decompressing InputStream that inflates on its own thread.
+ *
+ * A background thread fills buffers taken from a small free pool and hands
+ * them over through a bounded queue; the reader returns each buffer to the
+ * pool once consumed. Inflate and parse therefore overlap, memory is bounded
+ * by the pool, and no buffers are allocated after construction.
+ */
+final class PipelinedGzipInputStream extends InputStream {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int BUFFER_COUNT = 4;
+
+    private static final class Block {
+        final byte[] data;
+        int length;
+
+        Block(int size) {
+            this.data = new byte[size];
+        }
+    }
+
+    // Marks end of input (or failure) in the full queue
+    private static final Block END = new Block(0);
+
+    private final InputStream compressed;
+    private final BlockingQueue<Block> free = new ArrayBlockingQueue<>(BUFFER_COUNT);
+    // One extra slot so END can always be queued
+    private final BlockingQueue<Block> full = new ArrayBlockingQueue<>(BUFFER_COUNT + 1);
+    private final Thread inflater;
+    private volatile Throwable failure;
+
+    private Block current;
+    private int pos;
+
+    /**
+     * Starts inflating the compressed stream in the background.
+     *
+     * @param compressed The gzip-compressed input; closed when inflation ends
+     */
+    PipelinedGzipInputStream(InputStream compressed) {
+        this.compressed = Objects.requireNonNull(compressed, "compressed cannot be null");
+        for (int i = 0; i < BUFFER_COUNT; i++) {
+            free.add(new Block(BUFFER_SIZE));
+        }
+        this.inflater = new Thread(this::inflate, "gzip-inflater");
+        this.inflater.setDaemon(true);
+        this.inflater.start();
+    }
+
+    private void inflate() {
+        try (InputStream gz = new GZIPInputStream(compressed, BUFFER_SIZE)) {
+            while (true) {
+                Block block = free.take();
+                int n = gz.readNBytes(block.data, 0, block.data.length);
+                if (n > 0) {
+                    block.length = n;
+                    full.put(block);
+                }
+                if (n < block.data.length) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            // Closed by the reader
+            return;
+        } catch (IOException | RuntimeException e) {
+            failure = e;
+        }
+        full.offer(END);
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureData()) {
+            return -1;
+        }
+        return current.data[pos++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, b.length);
+        if (len == 0) {
+            return 0;
+        }
+        if (!ensureData()) {
+            return -1;
+        }
+        int n = Math.min(len, current.length - pos);
+        System.arraycopy(current.data, pos, b, off, n);
+        pos += n;
+        return n;
+    }
+
+    private boolean ensureData() throws IOException {
+        if (current == END) {
+            return false;
+        }
+        if (current != null && pos < current.length) {
+            return true;
+        }
+        if (current != null) {
+            free.offer(current);
+        }
+        try {
+            current = full.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while waiting for decompressed data", e);
+        }
+        pos = 0;
+        if (current == END) {
+            if (failure != null) {
+                throw new IOException("gzip decompression failed", failure);
+            }
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        current = END;
+        inflater.interrupt();
+        compressed.close();
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.imports;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Validates parsed rows and hands them to ProfileService in batches.
+ *
+ * Shared by the sequential and parallel importers. Rejected rows go into a
+ * RejectSummary instead of being printed one by one. If the service refuses a
+ * whole batch, the batch is replayed row by row so only the offending rows are
+ * rejected. Not thread-safe: use one batcher per worker.
+ */
+final class ProfileBatcher {
+
+    /** Default number of rows committed per createProfiles call. */
+    static final int DEFAULT_BATCH_SIZE = 1_000;
+
+    private final ProfileService profileService;
+    private final int batchSize;
+    private final List<ProfileRecord> batch;
+    private final long[] batchRows;
+    private final RejectSummary rejects;
+    private final DuplicateReport duplicates;
+    private final ImportMetrics.Recorder recorder;
+    private long successCount;
+
+    /**
+     * Creates a batcher.
+     *
+     * @param duplicates Rows to reject as duplicates, or null to skip the check
+     * @param recorder Receives validation, service and outcome metrics for this thread
+     */
+    ProfileBatcher(ProfileService profileService, int batchSize, int sampleLimit, DuplicateReport duplicates,
+                   ImportMetrics.Recorder recorder) {
+        this.profileService = Objects.requireNonNull(profileService, "profileService cannot be null");
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+        this.batchSize = batchSize;
+        this.batch = new ArrayList<>(batchSize);
+        this.batchRows = new long[batchSize];
+        this.rejects = new RejectSummary(sampleLimit);
+        this.duplicates = duplicates;
+        this.recorder = Objects.requireNonNull(recorder, "recorder cannot be null");
+    }
+
+    /**
+     * Validates a row and queues it for creation.
+     *
+     * @param rowNumber The 1-based row number in the original file
+     * @param row The parsed fields
+     * @return true if the row filled the batch and the batch was committed
+     */
+    boolean accept(long rowNumber, String[] row) {
+        long start = recorder.startValidate();
+        RejectReason reason = ProfileRowValidator.validate(row);
+        if (reason == null && duplicates != null) {
+            reason = duplicates.duplicateReason(rowNumber);
+        }
+        recorder.endValidate(start);
+        if (reason != null) {
+            rejects.record(rowNumber, reason, null);
+            recorder.reject(reason);
+            return false;
+        }
+        batchRows[batch.size()] = rowNumber;
+        batch.add(ProfileRowValidator.toRecord(row));
+        if (batch.size() < batchSize) {
+            return false;
+        }
+        flush();
+        return true;
+    }
+
+    /**
+     * Commits any queued rows.
+     */
+    void flush() {
+        if (batch.isEmpty()) {
+            return;
+        }
+        long before = successCount;
+        long start = System.nanoTime();
+        try {
+            successCount += profileService.createProfiles(batch);
+        } catch (RuntimeException batchFailure) {
+            for (int i = 0; i < batch.size(); i++) {
+                ProfileRecord r = batch.get(i);
+                try {
+                    profileService.createProfile(r.getId(), r.getEmail(), r.getDisplayName());
+                    successCount++;
+                } catch (RuntimeException e) {
+                    rejects.record(batchRows[i], RejectReason.SERVICE_ERROR, e.getMessage());
+                    recorder.reject(RejectReason.SERVICE_ERROR);
+                }
+            }
+        }
+        recorder.service(System.nanoTime() - start);
+        recorder.success(successCount - before);
+        batch.clear();
+    }
+
+    /**
+     * Gets the number of profiles committed so far; queued rows are not counted.
+     *
+     * @return The committed success count
+     */
+    long getSuccessCount() {
+        return successCount;
+    }
+
+    /**
+     * Gets the live reject summary.
+     *
+     * @return The reject summary
+     */
+    RejectSummary getRejects() {
+        return rejects;
+    }
+
+    /**
+     * Seeds the counters from an earlier, interrupted run.
+     *
+     * @param checkpoint The checkpoint to resume from
+     */
+    void restore(ImportCheckpoint checkpoint) {
+        successCount = checkpoint.getSuccessCount();
+        for (RejectReason reason : RejectReason.values()) {
+            rejects.addCount(reason, checkpoint.getRejectCount(reason));
+        }
+    }
+
+    /**
+     * Flushes and returns the result for everything accepted so far.
+     *
+     * @return The import result
+     */
+    ImportResult finish() {
+        flush();
+        recorder.publish();
+        return new ImportResult(successCount, rejects, duplicates);
+    }
+}
@@ -2,4 +2,16 @@ package com.example.imports;
 import java.nio.file.Path;
 public interface ProfileImporter {
     int importFrom(Path csvFile);
+
+    /**
+     * Imports profiles while reporting live progress to a listener.
+     * Implementations without progress support ignore the listener.
+     *
+     * @param csvFile Path to the CSV file
+     * @param listener Receives periodic progress, may be null
+     * @return Number of successfully imported profiles
+     */
+    default int importFrom(Path csvFile, ImportListener listener) {
+        return importFrom(csvFile);
+    }
 }
@@ -0,0 +1,44 @@
+package com.example.imports;
+
+import java.util.Objects;
+
+/**
+ * A validated row, ready to be handed to ProfileService.
+ */
+public final class ProfileRecord {
+
+    private final String id;
+    private final String email;
+    private final String displayName;
+
+    /**
+     * Constructor for ProfileRecord.
+     *
+     * @param id The profile id
+     * @param email The email address
+     * @param displayName The display name, may be empty
+     * @throws NullPointerException if any parameter is null
+     */
+    public ProfileRecord(String id, String email, String displayName) {
+        this.id = Objects.requireNonNull(id, "id");
+        this.email = Objects.requireNonNull(email, "email");
+        this.displayName = Objects.requireNonNull(displayName, "displayName");
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    @Override
+    public String toString() {
+        return id + " " + email + " " + displayName;
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.imports;
+
+/**
+ * Row-level validation shared by the CSV importers.
+ *
+ * Keeps the domain service clean: rows reaching ProfileService have an id
+ * and a plausible email.
+ */
+final class ProfileRowValidator {
+
+    private ProfileRowValidator() {
+    }
+
+    /**
+     * Validates a CSV row for required fields and email format.
+     *
+     * @param row The CSV row to validate
+     * @return The reason the row is invalid, or null if it is valid
+     */
+    static RejectReason validate(String[] row) {
+        if (row == null || row.length < 2) {
+            return RejectReason.MISSING_FIELDS;
+        }
+
+        String id = row[0];
+        String email = row[1];
+
+        // Check for null, empty, or whitespace-only values
+        if (id == null || id.trim().isEmpty()) {
+            return RejectReason.MISSING_ID;
+        }
+
+        if (email == null || email.trim().isEmpty() || !email.contains("@")) {
+            return RejectReason.INVALID_EMAIL;
+        }
+
+        return null;
+    }
+
+    /**
+     * Builds the record for a row that passed {@link #validate(String[])}.
+     *
+     * @param row A valid CSV row
+     * @return The trimmed profile record
+     */
+    static ProfileRecord toRecord(String[] row) {
+        String displayName = row.length > 2 && row[2] != null ? row[2].trim() : "";
+        return new ProfileRecord(row[0].trim(), row[1].trim(), displayName);
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.imports;
 
+import java.util.List;
 import java.util.Objects;
 
 public class ProfileService {
@@ -9,4 +10,26 @@ public class ProfileService {
         if (!email.contains("@")) throw new IllegalArgumentException("bad email");
         System.out.println("Created: " + id + " " + email + " " + displayName);
     }
+
+    /**
+     * Creates a batch of profiles together: every record is checked before any
+     * is created, and the batch is reported with a single console write.
+     *
+     * @param batch Validated records
+     * @return Number of profiles created
+     * @throws IllegalArgumentException if any record has a bad email; nothing is created
+     */
+    public int createProfiles(List<ProfileRecord> batch) {
+        Objects.requireNonNull(batch, "batch");
+        for (ProfileRecord r : batch) {
+            if (!r.getEmail().contains("@")) throw new IllegalArgumentException("bad email: " + r.getId());
+        }
+        StringBuilder out = new StringBuilder(batch.size() * 48);
+        for (ProfileRecord r : batch) {
+            out.append("Created: ").append(r.getId()).append(' ').append(r.getEmail()).append(' ')
+               .append(r.getDisplayName()).append(System.lineSeparator());
+        }
+        System.out.print(out);
+        return batch.size();
+    }
 }
@@ -0,0 +1,28 @@
+package com.example.imports;
+
+/**
+ * Why a CSV row was not imported.
+ */
+public enum RejectReason {
+    MISSING_FIELDS("missing required fields"),
+    MISSING_ID("missing id"),
+    INVALID_EMAIL("missing or invalid email"),
+    DUPLICATE_ID("duplicate id"),
+    DUPLICATE_EMAIL("duplicate email"),
+    SERVICE_ERROR("rejected by profile service");
+
+    private final String description;
+
+    RejectReason(String description) {
+        this.description = description;
+    }
+
+    /**
+     * Gets a human-readable description.
+     *
+     * @return The description
+     */
+    public String getDescription() {
+        return description;
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.imports;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aggregated reject counters by reason, plus a bounded sample of examples.
+ *
+ * Replaces per-row console output: memory stays bounded by the sample limit
+ * no matter how many rows are rejected. Not thread-safe; parallel workers keep
+ * their own summary and {@link #merge(RejectSummary)} them in file order.
+ */
+public final class RejectSummary {
+
+    /** Default number of example rows kept per reason. */
+    public static final int DEFAULT_SAMPLE_LIMIT = 5;
+
+    private final int sampleLimit;
+    private final long[] counts = new long[RejectReason.values().length];
+    private final Map<RejectReason, List<ImportResult.Rejection>> samples = new EnumMap<>(RejectReason.class);
+
+    /**
+     * Creates a summary keeping {@link #DEFAULT_SAMPLE_LIMIT} examples per reason.
+     */
+    public RejectSummary() {
+        this(DEFAULT_SAMPLE_LIMIT);
+    }
+
+    /**
+     * Creates a summary with a custom sample size.
+     *
+     * @param sampleLimit Maximum example rows kept per reason
+     * @throws IllegalArgumentException if sampleLimit is negative
+     */
+    public RejectSummary(int sampleLimit) {
+        if (sampleLimit < 0) {
+            throw new IllegalArgumentException("sampleLimit cannot be negative");
+        }
+        this.sampleLimit = sampleLimit;
+    }
+
+    /**
+     * Records a rejected row.
+     *
+     * @param row The 1-based row number in the original file
+     * @param reason Why the row was rejected
+     * @param detail Optional extra detail, e.g. an exception message
+     */
+    public void record(long row, RejectReason reason, String detail) {
+        counts[reason.ordinal()]++;
+        List<ImportResult.Rejection> examples = samples.computeIfAbsent(reason, r -> new ArrayList<>());
+        if (examples.size() < sampleLimit) {
+            examples.add(new ImportResult.Rejection(row, reason, detail));
+        }
+    }
+
+    /**
+     * Adds to a reason's count without recording examples, e.g. when resuming.
+     *
+     * @param reason The reason
+     * @param count Number of rows to add
+     */
+    void addCount(RejectReason reason, long count) {
+        counts[reason.ordinal()] += count;
+    }
+
+    /**
+     * Adds another summary's counts and samples to this one.
+     * Merging in file order keeps the earliest examples.
+     *
+     * @param other The summary to fold in
+     */
+    public void merge(RejectSummary other) {
+        for (RejectReason reason : RejectReason.values()) {
+            counts[reason.ordinal()] += other.counts[reason.ordinal()];
+            List<ImportResult.Rejection> theirs = other.samples.get(reason);
+            if (theirs == null) {
+                continue;
+            }
+            List<ImportResult.Rejection> ours = samples.computeIfAbsent(reason, r -> new ArrayList<>());
+            for (ImportResult.Rejection rejection : theirs) {
+                if (ours.size() >= sampleLimit) {
+                    break;
+                }
+                ours.add(rejection);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of rows rejected for a reason.
+     *
+     * @param reason The reason
+     * @return The count
+     */
+    public long getCount(RejectReason reason) {
+        return counts[reason.ordinal()];
+    }
+
+    /**
+     * Gets the total number of rejected rows.
+     *
+     * @return The total count
+     */
+    public long getTotal() {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * Gets the sampled rejections across all reasons, in row order.
+     *
+     * @return Example rejections
+     */
+    public List<ImportResult.Rejection> getSamples() {
+        List<ImportResult.Rejection> all = new ArrayList<>();
+        for (List<ImportResult.Rejection> examples : samples.values()) {
+            all.addAll(examples);
+        }
+        all.sort((a, b) -> Long.compare(a.getRow(), b.getRow()));
+        return Collections.unmodifiableList(all);
+    }
+
+    /**
+     * Formats the summary for console output: one line per reason, followed
+     * by the sampled rows.
+     *
+     * @return The multi-line report, empty if nothing was rejected
+     */
+    public String format() {
+        StringBuilder sb = new StringBuilder();
+        for (RejectReason reason : RejectReason.values()) {
+            long count = counts[reason.ordinal()];
+            if (count == 0) {
+                continue;
+            }
+            sb.append("Skipped ").append(count).append(" rows: ").append(reason.getDescription());
+            List<ImportResult.Rejection> examples = samples.get(reason);
+            if (examples != null && !examples.isEmpty()) {
+                sb.append(" (e.g. rows");
+                for (ImportResult.Rejection rejection : examples) {
+                    sb.append(' ').append(rejection.getRow());
+                }
+                sb.append(')');
+            }
+            sb.append(System.lineSeparator());
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "RejectSummary{total=" + getTotal() + "}";
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.imports;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+/**
+ * Streaming CSV importer that checkpoints its progress and resumes after a crash.
+ *
+ * Valid rows are committed in batches of {@code checkpointInterval}, and every
+ * commit saves an ImportCheckpoint with the byte offset just past the last
+ * committed record. On the next run the importer seeks straight to that
+ * offset, so rows before it are neither re-read nor re-created. Committing
+ * and saving are two steps: a crash between them replays that one batch, so
+ * up to {@code checkpointInterval} profiles may be created again unless
+ * ProfileService ignores ids it already has. The checkpoint is deleted once
+ * the import completes.
+ *
+ * Gzip input is supported; its offsets refer to the uncompressed stream, so a
+ * resume inflates and discards the committed prefix but still skips parsing,
+ * validation and profile creation for it.
+ */
+public class ResumableCsvProfileImporter implements ProfileImporter {
+
+    /** Default number of profiles committed, and so checkpointed, at a time. */
+    public static final int DEFAULT_CHECKPOINT_INTERVAL = 10_000;
+
+    private final ProfileService profileService;
+    private final Path checkpointFile;
+    private final int checkpointInterval;
+
+    /**
+     * Constructor with the default checkpoint interval.
+     *
+     * @param profileService The profile service to create profiles
+     * @param checkpointFile Where progress is persisted
+     * @throws NullPointerException if any parameter is null
+     */
+    public ResumableCsvProfileImporter(ProfileService profileService, Path checkpointFile) {
+        this(profileService, checkpointFile, DEFAULT_CHECKPOINT_INTERVAL);
+    }
+
+    /**
+     * Constructor with dependency injection.
+     *
+     * @param profileService The profile service to create profiles
+     * @param checkpointFile Where progress is persisted
+     * @param checkpointInterval Profiles per commit; a checkpoint is saved with each commit
+     * @throws NullPointerException if profileService or checkpointFile is null
+     * @throws IllegalArgumentException if checkpointInterval is not positive
+     */
+    public ResumableCsvProfileImporter(ProfileService profileService, Path checkpointFile, int checkpointInterval) {
+        this.profileService = Objects.requireNonNull(profileService, "profileService cannot be null");
+        this.checkpointFile = Objects.requireNonNull(checkpointFile, "checkpointFile cannot be null");
+        if (checkpointInterval < 1) {
+            throw new IllegalArgumentException("checkpointInterval must be positive");
+        }
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    /**
+     * Imports profiles from CSV file, resuming from a checkpoint if one exists.
+     *
+     * @param csvFile Path to the CSV file
+     * @return Total number of profiles imported, including earlier runs
+     * @throws NullPointerException if csvFile is null
+     */
+    @Override
+    public int importFrom(Path csvFile) {
+        return importFrom(csvFile, null);
+    }
+
+    /**
+     * Imports profiles from CSV file, reporting progress to a listener.
+     * Progress includes rows committed by earlier runs.
+     *
+     * @param csvFile Path to the CSV file
+     * @param listener Receives periodic progress, may be null
+     * @return Total number of profiles imported, including earlier runs
+     * @throws NullPointerException if csvFile is null
+     */
+    @Override
+    public int importFrom(Path csvFile, ImportListener listener) {
+        ImportResult result = importDetailed(csvFile, listener);
+        System.out.print(result.getRejects().format());
+        return Math.toIntExact(result.getSuccessCount());
+    }
+
+    /**
+     * Imports profiles and returns the reject summary instead of printing it.
+     * Counts include rows committed by earlier, interrupted runs; examples only
+     * cover this run.
+     *
+     * @param csvFile Path to the CSV file
+     * @return The import result
+     * @throws NullPointerException if csvFile is null
+     * @throws IllegalStateException if the checkpoint belongs to a different version of the file
+     * @throws UncheckedIOException if the file cannot be read
+     */
+    public ImportResult importDetailed(Path csvFile) {
+        return importDetailed(csvFile, null);
+    }
+
+    /**
+     * Imports profiles with progress reporting and returns the reject summary.
+     *
+     * @param csvFile Path to the CSV file
+     * @param listener Receives periodic progress, may be null
+     * @return The import result
+     * @throws NullPointerException if csvFile is null
+     * @throws IllegalStateException if the checkpoint belongs to a different version of the file
+     * @throws UncheckedIOException if the file cannot be read
+     */
+    public ImportResult importDetailed(Path csvFile, ImportListener listener) {
+        Objects.requireNonNull(csvFile, "csvFile cannot be null");
+
+        long offset = 0;
+        long rowNumber = 1;
+
+        ImportCheckpoint checkpoint = ImportCheckpoint.load(checkpointFile);
+        if (checkpoint != null) {
+            if (!checkpoint.matches(csvFile)) {
+                throw new IllegalStateException("checkpoint " + checkpointFile
+                        + " does not match " + csvFile + "; delete it to start over");
+            }
+            offset = checkpoint.getOffset();
+            rowNumber = checkpoint.getNextRow();
+            System.out.println("Resuming " + csvFile + " at row " + rowNumber + " (byte " + offset + ")");
+        }
+
+        try (InputStream in = openAt(csvFile, offset)) {
+            ImportMetrics metrics = new ImportMetrics(CsvInputs.estimatedSize(csvFile));
+            ImportMetrics.Recorder recorder = metrics.newRecorder(offset);
+            ProfileBatcher batcher = new ProfileBatcher(profileService, checkpointInterval,
+                    RejectSummary.DEFAULT_SAMPLE_LIMIT, null, recorder);
+            if (checkpoint != null) {
+                batcher.restore(checkpoint);
+                metrics.restore(checkpoint);
+            }
+            CsvRecordParser parser = new CsvRecordParser(in, offset, Long.MAX_VALUE);
+
+            try (ImportMetrics.Reporter reporter = metrics.startReporting(listener)) {
+                ImportResult result = importRows(csvFile, parser, rowNumber, batcher, recorder);
+                reporter.complete();
+                return result;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private ImportResult importRows(Path csvFile, CsvRecordParser parser, long rowNumber, ProfileBatcher batcher,
+                                    ImportMetrics.Recorder recorder) throws IOException {
+        while (true) {
+            long start = recorder.startRow();
+            String[] row = parser.next();
+            if (row == null) {
+                break;
+            }
+            recorder.parsed(start, parser.offset());
+            // Checkpoint right after each commit, so a resume replays at most the batch in flight
+            if (batcher.accept(rowNumber++, row)) {
+                ImportCheckpoint.of(csvFile, parser.offset(), rowNumber, batcher.getSuccessCount(),
+                        batcher.getRejects()).save(checkpointFile);
+            }
+        }
+        ImportResult result = batcher.finish();
+        Files.deleteIfExists(checkpointFile);
+        return result;
+    }
+
+    private static InputStream openAt(Path csvFile, long offset) throws IOException {
+        if (CsvInputs.isGzip(csvFile)) {
+            InputStream in = CsvInputs.open(csvFile);
+            in.skipNBytes(offset);
+            return in;
+        }
+        FileChannel channel = FileChannel.open(csvFile, StandardOpenOption.READ);
+        channel.position(offset);
+        return Channels.newInputStream(channel);
+    }
+}
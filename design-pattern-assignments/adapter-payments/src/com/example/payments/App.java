@@ -1,6 +1,10 @@
 package com.example.payments;
 
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 public class App {
@@ -9,14 +13,50 @@ public class App {
         
         // Register adapters instead of raw SDKs
         // This follows Dependency Inversion Principle - depend on abstractions
-        gateways.put("fastpay", new FastPayAdapter(new FastPayClient()));
-        gateways.put("safecash", new SafeCashAdapter(new SafeCashClient()));
+        // The async decorator adds non-blocking calls with a per-call timeout
+        // FastPay's quota is enforced on our side so a spike waits briefly instead of being throttled by them
+        RateLimitedPaymentGateway fastpayLimit = new RateLimitedPaymentGateway(
+                new AsyncPaymentGateway(new FastPayAdapter(new FastPayClient()), Duration.ofSeconds(2)),
+                100, RateLimitPolicy.WAIT);
+        gateways.put("fastpay", fastpayLimit);
+        gateways.put("safecash", new AsyncPaymentGateway(new SafeCashAdapter(new SafeCashClient()), Duration.ofSeconds(2)));
         
-        OrderService svc = new OrderService(gateways);
+        // "any" lets the router pick the faster healthy provider and fail over between them
+        Map<String, PaymentGateway> equivalent = new LinkedHashMap<>();
+        equivalent.put("fastpay", gateways.get("fastpay"));
+        equivalent.put("safecash", gateways.get("safecash"));
+        RoutingPaymentGateway router = new RoutingPaymentGateway(equivalent);
+        gateways.put("any", router);
+
+        // Order charges are journaled, so a rerun of App finds ord-1001 already paid
+        ChargeLedger ledger = new ChargeLedger(Path.of(System.getProperty("java.io.tmpdir"), "payments-ledger"),
+                1024 * 1024, false);
+        OrderService svc = new OrderService(gateways, new IdempotencyCache(), ledger);
 
         String id1 = svc.charge("fastpay", "cust-1", 1299);
         String id2 = svc.charge("safecash", "cust-2", 1299);
         System.out.println(id1);
         System.out.println(id2);
+
+        // A split checkout charges both providers concurrently
+        List<String> ids = svc.chargeAll(List.of(
+                new ChargeRequest("fastpay", "cust-3", 500),
+                new ChargeRequest("safecash", "cust-3", 799))).join();
+        System.out.println(ids);
+
+        for (int i = 0; i < 25; i++) {
+            svc.charge("any", "cust-5", 300);
+        }
+        router.status().forEach(System.out::println);
+        System.out.println("fastpay limiter: " + fastpayLimit);
+
+        // A client retry with the same idempotency key does not charge twice
+        String first = svc.charge("order-42", "fastpay", "cust-4", 2500);
+        String retry = svc.charge("order-42", "fastpay", "cust-4", 2500);
+        System.out.println(first + (first.equals(retry) ? " (retry deduplicated)" : " != " + retry));
+
+        System.out.println(svc.chargeOrder("ord-1001", "safecash", "cust-6", 4200));
+        System.out.println("Ledger for cust-6: " + ledger.findByCustomer("cust-6"));
+        ledger.close();
     }
 }
@@ -0,0 +1,89 @@
+package com.example.payments;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Decorator that gives any blocking PaymentGateway a proper async call path.
+ *
+ * Each {@link #chargeAsync} runs the blocking charge on the given executor
+ * (virtual threads where available) and bounds it with a per-call timeout.
+ * Timing out or cancelling the returned future interrupts the blocked call,
+ * so stuck provider requests do not keep holding threads.
+ */
+public class AsyncPaymentGateway implements PaymentGateway {
+
+    private final PaymentGateway delegate;
+    private final ExecutorService executor;
+    private final Duration defaultTimeout;
+
+    /**
+     * Constructor using the shared blocking-call executor.
+     *
+     * @param delegate The blocking gateway to wrap
+     * @param defaultTimeout Timeout applied to every async charge
+     * @throws NullPointerException if any parameter is null
+     */
+    public AsyncPaymentGateway(PaymentGateway delegate, Duration defaultTimeout) {
+        this(delegate, PaymentExecutors.shared(), defaultTimeout);
+    }
+
+    /**
+     * Constructor with dependency injection.
+     *
+     * @param delegate The blocking gateway to wrap
+     * @param executor Runs the blocking calls
+     * @param defaultTimeout Timeout applied to every async charge
+     * @throws NullPointerException if any parameter is null
+     * @throws IllegalArgumentException if defaultTimeout is not positive
+     */
+    public AsyncPaymentGateway(PaymentGateway delegate, ExecutorService executor, Duration defaultTimeout) {
+        this.delegate = Objects.requireNonNull(delegate, "delegate cannot be null");
+        this.executor = Objects.requireNonNull(executor, "executor cannot be null");
+        this.defaultTimeout = Objects.requireNonNull(defaultTimeout, "defaultTimeout cannot be null");
+        if (defaultTimeout.isNegative() || defaultTimeout.isZero()) {
+            throw new IllegalArgumentException("defaultTimeout must be positive");
+        }
+    }
+
+    @Override
+    public String charge(String customerId, int amountCents) {
+        return delegate.charge(customerId, amountCents);
+    }
+
+    @Override
+    public CompletableFuture<String> chargeAsync(String customerId, int amountCents) {
+        return chargeAsync(customerId, amountCents, defaultTimeout);
+    }
+
+    /**
+     * Charges asynchronously with an explicit timeout.
+     *
+     * @param customerId The customer ID
+     * @param amountCents The amount in cents
+     * @param timeout How long to wait before failing with a TimeoutException
+     * @return Future completed with the transaction ID; cancelling it interrupts the call
+     */
+    public CompletableFuture<String> chargeAsync(String customerId, int amountCents, Duration timeout) {
+        Objects.requireNonNull(timeout, "timeout cannot be null");
+        CompletableFuture<String> result = new CompletableFuture<>();
+        Future<?> task = executor.submit(() -> {
+            try {
+                result.complete(delegate.charge(customerId, amountCents));
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            }
+        });
+        result.whenComplete((txn, failure) -> {
+            if (result.isCancelled() || failure instanceof TimeoutException) {
+                task.cancel(true);
+            }
+        });
+        return result.orTimeout(timeout.toNanos(), TimeUnit.NANOSECONDS);
+    }
+}
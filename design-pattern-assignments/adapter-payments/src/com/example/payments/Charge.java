@@ -0,0 +1,37 @@
+package com.example.payments;
+
+import java.util.Objects;
+
+/**
+ * A single charge inside a batch sent to one gateway.
+ */
+public final class Charge {
+
+    private final String customerId;
+    private final int amountCents;
+
+    /**
+     * Constructor for Charge.
+     *
+     * @param customerId The customer ID
+     * @param amountCents The amount in cents
+     * @throws NullPointerException if customerId is null
+     */
+    public Charge(String customerId, int amountCents) {
+        this.customerId = Objects.requireNonNull(customerId, "customerId");
+        this.amountCents = amountCents;
+    }
+
+    public String getCustomerId() {
+        return customerId;
+    }
+
+    public int getAmountCents() {
+        return amountCents;
+    }
+
+    @Override
+    public String toString() {
+        return "Charge{" + customerId + ", " + amountCents + "}";
+    }
+}
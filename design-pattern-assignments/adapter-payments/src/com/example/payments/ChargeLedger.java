@@ -0,0 +1,391 @@
+package com.example.payments;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Crash-safe, append-only record of every charge, kept in memory-mapped segment files.
+ *
+ * Before a charge is sent an intent record is appended; once the provider
+ * answers, a success or failure record follows. After a crash the ledger
+ * therefore knows which orders were charged, which failed, and which were in
+ * flight and need reconciling with the provider.
+ *
+ * Each record is {@code [length][crc32][type][sequence][time][fields...]}.
+ * The body and checksum are written first and the length last, so a record
+ * is either complete or reads as length 0. On open, every segment is scanned
+ * to rebuild the in-memory indexes. A torn or corrupt record at the tail is
+ * discarded, the space after it is zeroed, and appending resumes there.
+ *
+ * Mapped writes survive a process crash as soon as they are made, since the
+ * pages belong to the OS page cache. To also survive power loss, enable
+ * {@code syncEachRecord}, which forces each record to disk before returning.
+ */
+public class ChargeLedger implements AutoCloseable {
+
+    /** Default segment size. */
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    private static final int MAGIC = 0x4C444752; // "LDGR"
+    private static final int SEGMENT_HEADER = 8;
+    private static final int RECORD_HEADER = 8;
+    private static final byte INTENT = 1;
+    private static final byte SUCCESS = 2;
+    private static final byte FAILURE = 3;
+    private static final String SEGMENT_PREFIX = "ledger-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final boolean syncEachRecord;
+    private final CRC32 crc = new CRC32();
+
+    private final Map<String, LedgerEntry> byOrder = new ConcurrentHashMap<>();
+    private final Map<String, List<String>> byCustomer = new HashMap<>();
+
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private int segmentIndex;
+    private int position;
+    private long sequence;
+    private boolean closed;
+
+    /**
+     * Opens a ledger with the default segment size and no per-record sync.
+     *
+     * @param directory Where segment files live; created if missing
+     * @throws UncheckedIOException if the ledger cannot be opened
+     */
+    public ChargeLedger(Path directory) {
+        this(directory, DEFAULT_SEGMENT_SIZE, false);
+    }
+
+    /**
+     * Opens a ledger, recovering its state from existing segments.
+     *
+     * @param directory Where segment files live; created if missing
+     * @param segmentSize Size of each segment file in bytes
+     * @param syncEachRecord Whether each record is forced to disk before returning
+     * @throws NullPointerException if directory is null
+     * @throws IllegalArgumentException if segmentSize is too small to hold a record
+     * @throws UncheckedIOException if the ledger cannot be opened
+     */
+    public ChargeLedger(Path directory, int segmentSize, boolean syncEachRecord) {
+        this.directory = Objects.requireNonNull(directory, "directory cannot be null");
+        if (segmentSize < 4096) {
+            throw new IllegalArgumentException("segmentSize must be at least 4096");
+        }
+        this.segmentSize = segmentSize;
+        this.syncEachRecord = syncEachRecord;
+        try {
+            Files.createDirectories(directory);
+            recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Records that a charge is about to be sent.
+     *
+     * @param orderId The order being charged
+     * @param provider The provider the charge goes to
+     * @param customerId The customer ID
+     * @param amountCents The amount in cents
+     * @throws NullPointerException if any string is null
+     * @throws IllegalStateException if the order already has a charge that is pending or succeeded
+     */
+    public synchronized void recordIntent(String orderId, String provider, String customerId, int amountCents) {
+        Objects.requireNonNull(orderId, "orderId cannot be null");
+        Objects.requireNonNull(provider, "provider cannot be null");
+        Objects.requireNonNull(customerId, "customerId cannot be null");
+        LedgerEntry existing = byOrder.get(orderId);
+        if (existing != null && existing.getStatus() != LedgerEntry.Status.FAILED) {
+            throw new IllegalStateException("order " + orderId + " is already " + existing.getStatus());
+        }
+        append(INTENT, orderId, provider, customerId, amountCents);
+        indexIntent(orderId, provider, customerId, amountCents);
+    }
+
+    /**
+     * Records that a charge succeeded.
+     *
+     * @param orderId The order
+     * @param transactionId The provider's transaction ID
+     * @throws IllegalStateException if the order has no pending charge
+     */
+    public synchronized void recordSuccess(String orderId, String transactionId) {
+        Objects.requireNonNull(transactionId, "transactionId cannot be null");
+        requirePending(orderId);
+        append(SUCCESS, orderId, transactionId, null, 0);
+        byOrder.computeIfPresent(orderId, (id, e) -> e.succeeded(transactionId));
+    }
+
+    /**
+     * Records that a charge failed.
+     *
+     * @param orderId The order
+     * @param reason Why it failed
+     * @throws IllegalStateException if the order has no pending charge
+     */
+    public synchronized void recordFailure(String orderId, String reason) {
+        String message = reason == null ? "unknown" : reason;
+        requirePending(orderId);
+        append(FAILURE, orderId, message, null, 0);
+        byOrder.computeIfPresent(orderId, (id, e) -> e.failed(message));
+    }
+
+    /**
+     * Looks up an order.
+     *
+     * @param orderId The order
+     * @return The latest state of its charge, or null if it was never charged
+     */
+    public LedgerEntry find(String orderId) {
+        return byOrder.get(Objects.requireNonNull(orderId, "orderId cannot be null"));
+    }
+
+    /**
+     * Lists a customer's orders.
+     *
+     * @param customerId The customer
+     * @return The latest state of each of the customer's charges, oldest first
+     */
+    public synchronized List<LedgerEntry> findByCustomer(String customerId) {
+        List<String> orders = byCustomer.getOrDefault(customerId, Collections.emptyList());
+        List<LedgerEntry> entries = new ArrayList<>(orders.size());
+        for (String orderId : orders) {
+            entries.add(byOrder.get(orderId));
+        }
+        return entries;
+    }
+
+    /**
+     * Lists charges that were sent but whose outcome was never recorded.
+     *
+     * @return Pending entries, in no particular order
+     */
+    public List<LedgerEntry> pending() {
+        List<LedgerEntry> pending = new ArrayList<>();
+        for (LedgerEntry e : byOrder.values()) {
+            if (e.getStatus() == LedgerEntry.Status.PENDING) {
+                pending.add(e);
+            }
+        }
+        return pending;
+    }
+
+    private void requirePending(String orderId) {
+        Objects.requireNonNull(orderId, "orderId cannot be null");
+        LedgerEntry existing = byOrder.get(orderId);
+        if (existing == null || existing.getStatus() != LedgerEntry.Status.PENDING) {
+            throw new IllegalStateException("order " + orderId + " has no pending charge");
+        }
+    }
+
+    private void indexIntent(String orderId, String provider, String customerId, int amountCents) {
+        LedgerEntry previous = byOrder.put(orderId, new LedgerEntry(orderId, provider, customerId, amountCents));
+        // A retried order keeps its original place in the customer's history
+        if (previous == null) {
+            byCustomer.computeIfAbsent(customerId, c -> new ArrayList<>(2)).add(orderId);
+        }
+    }
+
+    // ---- writing
+
+    /**
+     * Appends a record of orderId, first and, for intents, second and amountCents.
+     */
+    private void append(byte type, String orderId, String first, String second, int amountCents) {
+        if (closed) {
+            throw new IllegalStateException("ledger is closed");
+        }
+        byte[] order = orderId.getBytes(StandardCharsets.UTF_8);
+        byte[] a = first.getBytes(StandardCharsets.UTF_8);
+        byte[] b = second == null ? null : second.getBytes(StandardCharsets.UTF_8);
+        int bodyLength = 1 + 8 + 8 + 2 + order.length + 2 + a.length + (b == null ? 0 : 2 + b.length + 4);
+        if (order.length > 0xFFFF || a.length > 0xFFFF || (b != null && b.length > 0xFFFF)) {
+            throw new IllegalArgumentException("ledger field longer than 65535 bytes");
+        }
+        try {
+            if (position + RECORD_HEADER + bodyLength > segment.capacity()) {
+                openSegment(segmentIndex + 1, true);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        int body = position + RECORD_HEADER;
+        int p = body;
+        segment.put(p, type);
+        p += 1;
+        segment.putLong(p, ++sequence);
+        p += 8;
+        segment.putLong(p, System.currentTimeMillis());
+        p += 8;
+        p = putString(p, order);
+        p = putString(p, a);
+        if (b != null) {
+            p = putString(p, b);
+            segment.putInt(p, amountCents);
+        }
+
+        segment.putInt(position + 4, checksum(body, bodyLength));
+        // Writing the length last is what makes the record visible to recovery
+        segment.putInt(position, bodyLength);
+        if (syncEachRecord) {
+            segment.force(position, RECORD_HEADER + bodyLength);
+        }
+        position += RECORD_HEADER + bodyLength;
+    }
+
+    private int putString(int p, byte[] bytes) {
+        segment.putShort(p, (short) bytes.length);
+        segment.put(p + 2, bytes);
+        return p + 2 + bytes.length;
+    }
+
+    private int checksum(int offset, int length) {
+        crc.reset();
+        crc.update(segment.slice(offset, length));
+        return (int) crc.getValue();
+    }
+
+    // ---- opening and recovery
+
+    private void recover() throws IOException {
+        List<Path> segments;
+        try (Stream<Path> files = Files.list(directory)) {
+            segments = files.filter(f -> {
+                String name = f.getFileName().toString();
+                return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+            }).sorted().collect(Collectors.toList());
+        }
+        if (segments.isEmpty()) {
+            openSegment(1, true);
+            return;
+        }
+        for (Path file : segments) {
+            String name = file.getFileName().toString();
+            int index = Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+            openSegment(index, false);
+            replay();
+        }
+        // Clear a torn tail so a later, shorter record cannot be mistaken for part of it
+        for (int i = position; i < segment.capacity(); i++) {
+            if (segment.get(i) != 0) {
+                segment.put(i, (byte) 0);
+            }
+        }
+    }
+
+    /**
+     * Replays the current segment into the indexes and leaves the position
+     * just past its last valid record.
+     */
+    private void replay() {
+        int p = SEGMENT_HEADER;
+        int end = segment.capacity();
+        while (p + RECORD_HEADER <= end) {
+            int length = segment.getInt(p);
+            if (length <= 0 || p + RECORD_HEADER + length > end
+                    || segment.getInt(p + 4) != checksum(p + RECORD_HEADER, length)) {
+                break;
+            }
+            apply(p + RECORD_HEADER);
+            p += RECORD_HEADER + length;
+        }
+        position = p;
+    }
+
+    private void apply(int p) {
+        byte type = segment.get(p);
+        sequence = Math.max(sequence, segment.getLong(p + 1));
+        int q = p + 1 + 8 + 8;
+        String orderId = getString(q);
+        q += 2 + utf8Length(q);
+        String a = getString(q);
+        q += 2 + utf8Length(q);
+        switch (type) {
+            case INTENT: {
+                String customerId = getString(q);
+                q += 2 + utf8Length(q);
+                indexIntent(orderId, a, customerId, segment.getInt(q));
+                break;
+            }
+            case SUCCESS:
+                byOrder.computeIfPresent(orderId, (id, e) -> e.succeeded(a));
+                break;
+            case FAILURE:
+                byOrder.computeIfPresent(orderId, (id, e) -> e.failed(a));
+                break;
+            default:
+                throw new IllegalStateException("unknown ledger record type " + type + " in segment " + segmentIndex);
+        }
+    }
+
+    private int utf8Length(int p) {
+        return segment.getShort(p) & 0xFFFF;
+    }
+
+    private String getString(int p) {
+        byte[] bytes = new byte[utf8Length(p)];
+        segment.get(p + 2, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void openSegment(int index, boolean create) throws IOException {
+        if (channel != null) {
+            segment.force();
+            channel.close();
+        }
+        Path file = directory.resolve(String.format("%s%08d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX));
+        boolean fresh = create && !Files.exists(file);
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        // Segments keep the size they were created with
+        int size = fresh ? segmentSize : (int) Math.max(channel.size(), SEGMENT_HEADER);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        segmentIndex = index;
+        if (fresh) {
+            segment.putInt(0, MAGIC);
+            segment.putInt(4, 1);
+            segment.force();
+        } else if (segment.getInt(0) != MAGIC) {
+            throw new IOException("not a ledger segment: " + file);
+        }
+        position = SEGMENT_HEADER;
+    }
+
+    /**
+     * Forces outstanding records to disk and closes the current segment.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            segment.force();
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
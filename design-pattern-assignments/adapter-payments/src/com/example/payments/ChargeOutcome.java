@@ -0,0 +1,53 @@
+package com.example.payments;
+
+import java.util.Objects;
+
+/**
+ * Per-charge result of a batch: either a transaction ID or the failure.
+ * One bad charge does not fail the rest of its batch.
+ */
+public final class ChargeOutcome {
+
+    private final String transactionId;
+    private final RuntimeException failure;
+
+    private ChargeOutcome(String transactionId, RuntimeException failure) {
+        this.transactionId = transactionId;
+        this.failure = failure;
+    }
+
+    public static ChargeOutcome success(String transactionId) {
+        return new ChargeOutcome(Objects.requireNonNull(transactionId, "transactionId"), null);
+    }
+
+    public static ChargeOutcome failure(RuntimeException failure) {
+        return new ChargeOutcome(null, Objects.requireNonNull(failure, "failure"));
+    }
+
+    public boolean isSuccess() {
+        return failure == null;
+    }
+
+    /**
+     * Gets the transaction ID.
+     *
+     * @return The transaction ID, or null if the charge failed
+     */
+    public String getTransactionId() {
+        return transactionId;
+    }
+
+    /**
+     * Gets the failure.
+     *
+     * @return The failure, or null if the charge succeeded
+     */
+    public RuntimeException getFailure() {
+        return failure;
+    }
+
+    @Override
+    public String toString() {
+        return isSuccess() ? transactionId : "failed: " + failure.getMessage();
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.payments;
+
+import java.util.Objects;
+
+/**
+ * One charge in a multi-provider checkout.
+ */
+public final class ChargeRequest {
+
+    private final String provider;
+    private final String customerId;
+    private final int amountCents;
+
+    /**
+     * Constructor for ChargeRequest.
+     *
+     * @param provider The provider name, as registered with OrderService
+     * @param customerId The customer ID
+     * @param amountCents The amount in cents
+     * @throws NullPointerException if provider or customerId is null
+     */
+    public ChargeRequest(String provider, String customerId, int amountCents) {
+        this.provider = Objects.requireNonNull(provider, "provider");
+        this.customerId = Objects.requireNonNull(customerId, "customerId");
+        this.amountCents = amountCents;
+    }
+
+    public String getProvider() {
+        return provider;
+    }
+
+    public String getCustomerId() {
+        return customerId;
+    }
+
+    public int getAmountCents() {
+        return amountCents;
+    }
+
+    @Override
+    public String toString() {
+        return "ChargeRequest{" + provider + ", " + customerId + ", " + amountCents + "}";
+    }
+}
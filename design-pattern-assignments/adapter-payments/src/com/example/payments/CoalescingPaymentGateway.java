@@ -0,0 +1,238 @@
+package com.example.payments;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decorator that coalesces concurrent single charges into provider batches.
+ *
+ * Callers keep using {@link #charge} or {@link #chargeAsync}; each charge is
+ * queued and a flusher thread collects queued charges into one
+ * {@link PaymentGateway#chargeBatch} call. A batch is sent as soon as it
+ * reaches {@code maxBatchSize}, or when {@code linger} has passed since its
+ * first charge was queued, whichever comes first. Each outcome is routed back
+ * to the caller that queued it. When idle a lone charge waits at most
+ * {@code linger}.
+ *
+ * Batching only pays off with a delegate whose chargeBatch makes a real bulk
+ * call. Neither FastPay nor SafeCash has a bulk endpoint, so for them a batch
+ * is the default fan-out of concurrent single charges; coalescing then saves
+ * nothing and only adds up to {@code linger} to every charge. Call those
+ * gateways directly.
+ */
+public class CoalescingPaymentGateway implements PaymentGateway, AutoCloseable {
+
+    private static final int DEFAULT_QUEUE_CAPACITY = 100_000;
+
+    private static final class Pending {
+        final Charge charge;
+        final CompletableFuture<String> result = new CompletableFuture<>();
+
+        Pending(Charge charge) {
+            this.charge = charge;
+        }
+    }
+
+    private final PaymentGateway delegate;
+    private final int maxBatchSize;
+    private final long lingerNanos;
+    private final ExecutorService batchExecutor;
+    private final BlockingQueue<Pending> queue;
+    private final Thread flusher;
+    private volatile boolean closed;
+
+    /**
+     * Constructor using the shared blocking-call executor for batch calls.
+     *
+     * @param delegate The gateway that receives batches
+     * @param maxBatchSize Largest batch sent in one call
+     * @param linger Longest a queued charge waits for its batch to fill
+     * @throws NullPointerException if any parameter is null
+     */
+    public CoalescingPaymentGateway(PaymentGateway delegate, int maxBatchSize, Duration linger) {
+        this(delegate, maxBatchSize, linger, PaymentExecutors.shared());
+    }
+
+    /**
+     * Constructor with dependency injection.
+     *
+     * @param delegate The gateway that receives batches
+     * @param maxBatchSize Largest batch sent in one call
+     * @param linger Longest a queued charge waits for its batch to fill
+     * @param batchExecutor Runs the batch calls, so several batches can be in flight
+     * @throws NullPointerException if any parameter is null
+     * @throws IllegalArgumentException if maxBatchSize is not positive or linger is negative
+     */
+    public CoalescingPaymentGateway(PaymentGateway delegate, int maxBatchSize, Duration linger,
+                                    ExecutorService batchExecutor) {
+        this.delegate = Objects.requireNonNull(delegate, "delegate cannot be null");
+        Objects.requireNonNull(linger, "linger cannot be null");
+        this.batchExecutor = Objects.requireNonNull(batchExecutor, "batchExecutor cannot be null");
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("maxBatchSize must be positive");
+        }
+        if (linger.isNegative()) {
+            throw new IllegalArgumentException("linger cannot be negative");
+        }
+        this.maxBatchSize = maxBatchSize;
+        this.lingerNanos = linger.toNanos();
+        this.queue = new LinkedBlockingQueue<>(DEFAULT_QUEUE_CAPACITY);
+        this.flusher = new Thread(this::flushLoop, "charge-coalescer");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * Charges a customer, blocking until the batch containing this charge completes.
+     *
+     * @param customerId The customer ID
+     * @param amountCents The amount in cents
+     * @return Transaction ID
+     */
+    @Override
+    public String charge(String customerId, int amountCents) {
+        try {
+            return chargeAsync(customerId, amountCents).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Queues a charge for the next batch.
+     *
+     * @param customerId The customer ID
+     * @param amountCents The amount in cents
+     * @return Future completed when the batch returns
+     * @throws IllegalStateException if the gateway is closed
+     */
+    @Override
+    public CompletableFuture<String> chargeAsync(String customerId, int amountCents) {
+        Pending pending = new Pending(new Charge(customerId, amountCents));
+        if (closed) {
+            throw new IllegalStateException("gateway is closed");
+        }
+        try {
+            // Blocks when the queue is full, pushing back on callers instead of growing without bound
+            queue.put(pending);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pending.result.completeExceptionally(e);
+        }
+        // If close() began after the check above, the flusher may already have done its final drain.
+        // Whoever removes the charge from the queue owns it: if it is still there, fail it here.
+        if (closed && queue.remove(pending)) {
+            pending.result.completeExceptionally(new IllegalStateException("gateway is closed"));
+        }
+        return pending.result;
+    }
+
+    @Override
+    public List<ChargeOutcome> chargeBatch(List<Charge> charges) {
+        return delegate.chargeBatch(charges);
+    }
+
+    private void flushLoop() {
+        List<Pending> batch = new ArrayList<>(maxBatchSize);
+        try {
+            while (!closed || !queue.isEmpty()) {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + lingerNanos;
+                while (batch.size() < maxBatchSize) {
+                    // Take whatever is already queued without waiting
+                    if (queue.drainTo(batch, maxBatchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                dispatch(new ArrayList<>(batch));
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        failRemaining(batch);
+    }
+
+    private void dispatch(List<Pending> batch) {
+        try {
+            batchExecutor.execute(() -> send(batch));
+        } catch (RejectedExecutionException e) {
+            send(batch);
+        }
+    }
+
+    private void send(List<Pending> batch) {
+        List<Charge> charges = new ArrayList<>(batch.size());
+        for (Pending p : batch) {
+            charges.add(p.charge);
+        }
+        try {
+            List<ChargeOutcome> outcomes = delegate.chargeBatch(charges);
+            for (int i = 0; i < batch.size(); i++) {
+                ChargeOutcome outcome = outcomes.get(i);
+                if (outcome.isSuccess()) {
+                    batch.get(i).result.complete(outcome.getTransactionId());
+                } else {
+                    batch.get(i).result.completeExceptionally(outcome.getFailure());
+                }
+            }
+        } catch (RuntimeException e) {
+            for (Pending p : batch) {
+                p.result.completeExceptionally(e);
+            }
+        }
+    }
+
+    private void failRemaining(List<Pending> batch) {
+        queue.drainTo(batch);
+        for (Pending p : batch) {
+            p.result.completeExceptionally(new IllegalStateException("gateway is closed"));
+        }
+    }
+
+    /**
+     * Stops accepting charges, sends what is already queued and stops the flusher.
+     * Anything the flusher did not send in time is failed, so no future is left pending.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flusher.interrupt();
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        failRemaining(new ArrayList<>());
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.payments;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Recent latency, error rate and circuit-breaker state of one gateway.
+ *
+ * Samples decay: every {@code halfLife} all counters are halved, so the
+ * numbers describe roughly the last few half-lives rather than all time. The
+ * first caller to notice a half-life has passed does the halving.
+ *
+ * The breaker opens when at least {@value #MIN_SAMPLES} recent calls have an
+ * error rate of {@code errorThreshold} or more. After {@code openFor} it lets
+ * a single probe through; the probe's outcome closes or re-opens it.
+ */
+final class GatewayHealth {
+
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    static final int MIN_SAMPLES = 20;
+
+    private final String name;
+    private final PaymentGateway gateway;
+    private final long halfLifeNanos;
+    private final double errorThreshold;
+    private final long openForNanos;
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final AtomicLong successes = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong nextDecayNanos;
+    private final AtomicInteger state = new AtomicInteger(State.CLOSED.ordinal());
+    private volatile long openedAtNanos;
+
+    GatewayHealth(String name, PaymentGateway gateway, long halfLifeNanos, double errorThreshold, long openForNanos) {
+        this.name = Objects.requireNonNull(name, "name cannot be null");
+        this.gateway = Objects.requireNonNull(gateway, "gateway cannot be null");
+        this.halfLifeNanos = halfLifeNanos;
+        this.errorThreshold = errorThreshold;
+        this.openForNanos = openForNanos;
+        this.nextDecayNanos = new AtomicLong(System.nanoTime() + halfLifeNanos);
+    }
+
+    String getName() {
+        return name;
+    }
+
+    PaymentGateway getGateway() {
+        return gateway;
+    }
+
+    State getState() {
+        return State.values()[state.get()];
+    }
+
+    /**
+     * Asks whether a call may go to this gateway. In the half-open state only
+     * the first caller gets through, as the probe.
+     *
+     * @return true if the call may proceed
+     */
+    boolean tryAcquire() {
+        int s = state.get();
+        if (s == State.CLOSED.ordinal()) {
+            return true;
+        }
+        if (s == State.OPEN.ordinal() && System.nanoTime() - openedAtNanos >= openForNanos) {
+            return state.compareAndSet(s, State.HALF_OPEN.ordinal());
+        }
+        return false;
+    }
+
+    /**
+     * Records the outcome of a call that {@link #tryAcquire()} let through.
+     *
+     * @param nanos How long the call took
+     * @param success Whether it succeeded
+     */
+    void record(long nanos, boolean success) {
+        decayIfDue();
+        if (success) {
+            latency.record(nanos);
+            successes.incrementAndGet();
+            if (state.compareAndSet(State.HALF_OPEN.ordinal(), State.CLOSED.ordinal())) {
+                // Start over so the failures that opened the breaker do not trip it again
+                failures.set(0);
+            }
+            return;
+        }
+        long failed = failures.incrementAndGet();
+        if (state.get() == State.HALF_OPEN.ordinal()) {
+            trip(State.HALF_OPEN);
+            return;
+        }
+        long total = failed + successes.get();
+        if (total >= MIN_SAMPLES && failed >= errorThreshold * total) {
+            trip(State.CLOSED);
+        }
+    }
+
+    /**
+     * Gives back a permit whose call says nothing about this gateway, e.g. a
+     * losing hedge that was cancelled or a charge refused as invalid, so a
+     * half-open breaker does not stay waiting for it.
+     */
+    void release() {
+        state.compareAndSet(State.HALF_OPEN.ordinal(), State.OPEN.ordinal());
+    }
+
+    private void trip(State from) {
+        // Late failures of calls made before the breaker opened must not extend the open period
+        if (state.get() == from.ordinal()) {
+            openedAtNanos = System.nanoTime();
+            state.compareAndSet(from.ordinal(), State.OPEN.ordinal());
+        }
+    }
+
+    private void decayIfDue() {
+        long due = nextDecayNanos.get();
+        long now = System.nanoTime();
+        if (now - due >= 0 && nextDecayNanos.compareAndSet(due, now + halfLifeNanos)) {
+            latency.decay();
+            successes.getAndUpdate(c -> c >>> 1);
+            failures.getAndUpdate(c -> c >>> 1);
+        }
+    }
+
+    /**
+     * Returns a latency percentile over recent successful calls.
+     *
+     * @param quantile Between 0 and 1
+     * @return Latency in nanoseconds, or -1 if there are too few samples to tell
+     */
+    long percentile(double quantile) {
+        return latency.count() >= MIN_SAMPLES ? latency.percentile(quantile) : -1;
+    }
+
+    /**
+     * Returns the recent error rate.
+     *
+     * @return Between 0 and 1
+     */
+    double errorRate() {
+        long failed = failures.get();
+        long total = failed + successes.get();
+        return total == 0 ? 0.0 : (double) failed / total;
+    }
+
+    @Override
+    public String toString() {
+        long p95 = percentile(0.95);
+        return String.format("%s %s p95=%s errors=%.0f%%", name, getState(),
+                p95 < 0 ? "n/a" : String.format("%.1fms", p95 / 1e6), errorRate() * 100);
+    }
+}
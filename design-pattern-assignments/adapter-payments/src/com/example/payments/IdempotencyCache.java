@@ -0,0 +1,199 @@
+package com.example.payments;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the result of each charge by a caller-supplied idempotency key.
+ *
+ * The first call with a key runs the charge; later calls with the same key
+ * get the same future, so a retry returns the original transaction ID and a
+ * duplicate arriving while the first call is still in flight waits for it
+ * instead of charging again. Failed charges are forgotten so the caller can
+ * retry them.
+ *
+ * Keys are spread over independent stripes, each a ConcurrentHashMap plus a
+ * queue of its entries in insertion order. Every entry lives for the same TTL,
+ * so insertion order is also expiry order and eviction only ever looks at the
+ * head of the queue. Each stripe holds at most {@code maxKeys / stripes}
+ * entries. A key that has not expired is never dropped, since a retry would
+ * then charge again: when a stripe is full of live keys, new keys are refused
+ * until the oldest expire. Size {@code maxKeys} for the keys expected per TTL.
+ */
+public class IdempotencyCache {
+
+    /** Default time a key is remembered. */
+    public static final Duration DEFAULT_TTL = Duration.ofHours(1);
+    /** Default upper bound on remembered keys. */
+    public static final int DEFAULT_MAX_KEYS = 1_000_000;
+    private static final int STRIPES = 64;
+
+    private static final class Entry {
+        final String key;
+        final String fingerprint;
+        final long expiresAtNanos;
+        final CompletableFuture<String> result = new CompletableFuture<>();
+
+        Entry(String key, String fingerprint, long expiresAtNanos) {
+            this.key = key;
+            this.fingerprint = fingerprint;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+
+        boolean isExpired(long now) {
+            return now - expiresAtNanos >= 0;
+        }
+    }
+
+    private static final class Stripe {
+        final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+        final Queue<Entry> order = new ConcurrentLinkedQueue<>();
+        // Length of the queue, which bounds the map; ConcurrentLinkedQueue.size() is a full scan
+        final AtomicInteger size = new AtomicInteger();
+    }
+
+    private final long ttlNanos;
+    private final int maxKeysPerStripe;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    /**
+     * Constructor with the default TTL and key limit.
+     */
+    public IdempotencyCache() {
+        this(DEFAULT_TTL, DEFAULT_MAX_KEYS);
+    }
+
+    /**
+     * Constructor with explicit limits.
+     *
+     * @param ttl How long a key is remembered
+     * @param maxKeys Upper bound on remembered keys
+     * @throws NullPointerException if ttl is null
+     * @throws IllegalArgumentException if ttl or maxKeys is not positive
+     */
+    public IdempotencyCache(Duration ttl, int maxKeys) {
+        Objects.requireNonNull(ttl, "ttl cannot be null");
+        if (ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("ttl must be positive");
+        }
+        if (maxKeys < 1) {
+            throw new IllegalArgumentException("maxKeys must be positive");
+        }
+        this.ttlNanos = ttl.toNanos();
+        this.maxKeysPerStripe = Math.max(1, maxKeys / STRIPES);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Runs a charge once per key.
+     *
+     * @param key The idempotency key
+     * @param fingerprint Identifies the request; a key reused for a different request is rejected
+     * @param charge Starts the charge; only called if the key is new or expired
+     * @return The future of the first call made with this key
+     * @throws NullPointerException if any parameter is null
+     * @throws IllegalArgumentException if the key was used for a different request
+     * @throws IllegalStateException if the key is new and the cache is full of unexpired keys
+     */
+    public CompletableFuture<String> execute(String key, String fingerprint,
+                                             Supplier<CompletableFuture<String>> charge) {
+        Objects.requireNonNull(key, "key cannot be null");
+        Objects.requireNonNull(fingerprint, "fingerprint cannot be null");
+        Objects.requireNonNull(charge, "charge cannot be null");
+
+        Stripe stripe = stripeFor(key);
+        long now = System.nanoTime();
+        Entry fresh = new Entry(key, fingerprint, now + ttlNanos);
+        while (true) {
+            Entry existing = stripe.entries.putIfAbsent(key, fresh);
+            if (existing == null) {
+                break;
+            }
+            if (!existing.isExpired(now)) {
+                if (!existing.fingerprint.equals(fingerprint)) {
+                    throw new IllegalArgumentException("idempotency key reused for a different request: " + key);
+                }
+                return existing.result;
+            }
+            if (stripe.entries.replace(key, existing, fresh)) {
+                break;
+            }
+            // Lost a race with another caller or with eviction; look again
+        }
+        evict(stripe, now);
+        if (stripe.size.get() >= maxKeysPerStripe) {
+            stripe.entries.remove(key, fresh);
+            throw new IllegalStateException("idempotency cache is full: " + size() + " unexpired keys");
+        }
+        stripe.order.offer(fresh);
+        stripe.size.incrementAndGet();
+        start(stripe, fresh, charge);
+        return fresh.result;
+    }
+
+    private void start(Stripe stripe, Entry entry, Supplier<CompletableFuture<String>> charge) {
+        CompletableFuture<String> call;
+        try {
+            call = charge.get();
+        } catch (RuntimeException e) {
+            call = CompletableFuture.failedFuture(e);
+        }
+        call.whenComplete((id, failure) -> {
+            if (failure != null) {
+                // Let a retry try again rather than replaying the failure, and free its slot now
+                stripe.entries.remove(entry.key, entry);
+                if (stripe.order.remove(entry)) {
+                    stripe.size.decrementAndGet();
+                }
+                entry.result.completeExceptionally(failure);
+            } else {
+                entry.result.complete(id);
+            }
+        });
+    }
+
+    // Drops expired or replaced entries from the head; a live, unexpired entry stops it
+    private void evict(Stripe stripe, long now) {
+        while (true) {
+            Entry head = stripe.order.peek();
+            if (head == null) {
+                return;
+            }
+            boolean live = stripe.entries.get(head.key) == head;
+            if (live && !head.isExpired(now)) {
+                return;
+            }
+            if (stripe.order.remove(head)) {
+                stripe.size.decrementAndGet();
+                stripe.entries.remove(head.key, head);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of tracked keys, including expired or failed ones not yet evicted.
+     *
+     * @return Number of keys
+     */
+    public int size() {
+        int total = 0;
+        for (Stripe stripe : stripes) {
+            total += stripe.size.get();
+        }
+        return total;
+    }
+
+    private Stripe stripeFor(String key) {
+        int h = key.hashCode();
+        h ^= h >>> 16;
+        return stripes[h & (STRIPES - 1)];
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.payments;
+
+import java.util.Objects;
+
+/**
+ * Latest known state of one order's charge in the ChargeLedger.
+ */
+public final class LedgerEntry {
+
+    public enum Status { PENDING, SUCCEEDED, FAILED }
+
+    private final String orderId;
+    private final String provider;
+    private final String customerId;
+    private final int amountCents;
+    private final Status status;
+    private final String transactionId;
+    private final String failure;
+
+    LedgerEntry(String orderId, String provider, String customerId, int amountCents) {
+        this(orderId, provider, customerId, amountCents, Status.PENDING, null, null);
+    }
+
+    private LedgerEntry(String orderId, String provider, String customerId, int amountCents, Status status,
+                        String transactionId, String failure) {
+        this.orderId = Objects.requireNonNull(orderId, "orderId");
+        this.provider = Objects.requireNonNull(provider, "provider");
+        this.customerId = Objects.requireNonNull(customerId, "customerId");
+        this.amountCents = amountCents;
+        this.status = status;
+        this.transactionId = transactionId;
+        this.failure = failure;
+    }
+
+    LedgerEntry succeeded(String transactionId) {
+        return new LedgerEntry(orderId, provider, customerId, amountCents, Status.SUCCEEDED, transactionId, null);
+    }
+
+    LedgerEntry failed(String failure) {
+        return new LedgerEntry(orderId, provider, customerId, amountCents, Status.FAILED, null, failure);
+    }
+
+    public String getOrderId() {
+        return orderId;
+    }
+
+    public String getProvider() {
+        return provider;
+    }
+
+    public String getCustomerId() {
+        return customerId;
+    }
+
+    public int getAmountCents() {
+        return amountCents;
+    }
+
+    /**
+     * Gets the status. PENDING after a restart means the process stopped
+     * between sending the charge and recording its outcome, so the provider
+     * must be asked what happened.
+     *
+     * @return The status
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Gets the transaction ID.
+     *
+     * @return The transaction ID, or null unless the charge succeeded
+     */
+    public String getTransactionId() {
+        return transactionId;
+    }
+
+    /**
+     * Gets the failure message.
+     *
+     * @return The failure message, or null unless the charge failed
+     */
+    public String getFailure() {
+        return failure;
+    }
+
+    @Override
+    public String toString() {
+        return orderId + " " + provider + " " + customerId + " " + amountCents + " " + status
+                + (transactionId != null ? " " + transactionId : "")
+                + (failure != null ? " (" + failure + ")" : "");
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.payments;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives OrderService at a fixed arrival rate and measures charge latency.
+ *
+ * This is an open model: charge i is due at {@code start + i / rate} no
+ * matter how earlier charges are doing, and is sent with
+ * {@link OrderService#chargeAsync} so a slow charge never holds up the next
+ * one. Latency is measured from the due time, not from when the charge was
+ * actually sent. If the service stalls and the generator falls behind, the
+ * wait shows up in the numbers instead of being hidden (coordinated omission).
+ */
+public class LoadGenerator {
+
+    // 5 bits per power of two keeps percentiles within about 3%
+    private static final int HISTOGRAM_PRECISION = 5;
+
+    private final OrderService orderService;
+    private final String provider;
+    private final double ratePerSecond;
+    private final Duration duration;
+
+    /**
+     * Constructor with dependency injection.
+     *
+     * @param orderService The service under test
+     * @param provider Provider to charge through
+     * @param ratePerSecond Charges started per second
+     * @param duration How long to keep starting charges
+     * @throws NullPointerException if any object parameter is null
+     * @throws IllegalArgumentException if ratePerSecond or duration is not positive
+     */
+    public LoadGenerator(OrderService orderService, String provider, double ratePerSecond, Duration duration) {
+        this.orderService = Objects.requireNonNull(orderService, "orderService cannot be null");
+        this.provider = Objects.requireNonNull(provider, "provider cannot be null");
+        this.duration = Objects.requireNonNull(duration, "duration cannot be null");
+        if (!(ratePerSecond > 0)) {
+            throw new IllegalArgumentException("ratePerSecond must be positive");
+        }
+        if (duration.isNegative() || duration.isZero()) {
+            throw new IllegalArgumentException("duration must be positive");
+        }
+        this.ratePerSecond = ratePerSecond;
+    }
+
+    /**
+     * Runs the load and waits for every charge to finish.
+     *
+     * @return The report
+     */
+    public LoadReport run() {
+        LatencyHistogram latency = new LatencyHistogram(HISTOGRAM_PRECISION);
+        LongAccumulator max = new LongAccumulator(Math::max, 0L);
+        LongAdder succeeded = new LongAdder();
+        LongAdder failed = new LongAdder();
+        AtomicLong outstanding = new AtomicLong();
+        CompletableFuture<Void> drained = new CompletableFuture<>();
+
+        double intervalNanos = 1e9 / ratePerSecond;
+        long total = (long) (duration.toNanos() / intervalNanos);
+        long start = System.nanoTime();
+        // Counts the generator itself, so drained cannot complete before the last charge is sent
+        outstanding.incrementAndGet();
+        for (long i = 0; i < total; i++) {
+            long due = start + (long) (i * intervalNanos);
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            outstanding.incrementAndGet();
+            CompletableFuture<String> call;
+            try {
+                call = orderService.chargeAsync(provider, "load-" + i, 100 + (int) (i % 1000));
+            } catch (RuntimeException e) {
+                call = CompletableFuture.failedFuture(e);
+            }
+            call.whenComplete((id, failure) -> {
+                long nanos = System.nanoTime() - due;
+                latency.record(nanos);
+                max.accumulate(nanos);
+                if (failure == null) {
+                    succeeded.increment();
+                } else {
+                    failed.increment();
+                }
+                if (outstanding.decrementAndGet() == 0) {
+                    drained.complete(null);
+                }
+            });
+        }
+        if (outstanding.decrementAndGet() == 0) {
+            drained.complete(null);
+        }
+        drained.join();
+        long elapsed = System.nanoTime() - start;
+        return new LoadReport(total, succeeded.sum(), failed.sum(), elapsed, ratePerSecond, latency, max.get());
+    }
+
+    /**
+     * Runs a load test against simulated FastPay and SafeCash providers.
+     *
+     * Usage: {@code LoadGenerator [provider] [rate per second] [seconds]},
+     * where provider is fastpay, safecash or any.
+     *
+     * @param args Command line arguments
+     */
+    public static void main(String[] args) {
+        String provider = args.length > 0 ? args[0] : "fastpay";
+        double rate = args.length > 1 ? Double.parseDouble(args[1]) : 200;
+        long seconds = args.length > 2 ? Long.parseLong(args[2]) : 10;
+
+        Map<String, PaymentGateway> gateways = new LinkedHashMap<>();
+        gateways.put("fastpay", new AsyncPaymentGateway(new FastPayAdapter(new SimulatedFastPayClient(
+                new ProviderSimulator("FastPay", Duration.ofMillis(20), Duration.ofMillis(120), 0.01, 500))),
+                Duration.ofSeconds(2)));
+        gateways.put("safecash", new AsyncPaymentGateway(new SafeCashAdapter(new SimulatedSafeCashClient(
+                new ProviderSimulator("SafeCash", Duration.ofMillis(35), Duration.ofMillis(200), 0.005, 300))),
+                Duration.ofSeconds(2)));
+        gateways.put("any", new RoutingPaymentGateway(new LinkedHashMap<>(gateways)));
+
+        System.out.printf("Charging %s at %.0f/s for %ds...%n", provider, rate, seconds);
+        LoadReport report = new LoadGenerator(new OrderService(gateways), provider, rate, Duration.ofSeconds(seconds)).run();
+        System.out.print(report.format());
+        System.exit(0);
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.payments;
+
+import java.time.Duration;
+
+/**
+ * Result of a LoadGenerator run.
+ */
+public final class LoadReport {
+
+    private final long sent;
+    private final long succeeded;
+    private final long failed;
+    private final long elapsedNanos;
+    private final double targetRate;
+    private final LatencyHistogram latency;
+    private final long maxNanos;
+
+    LoadReport(long sent, long succeeded, long failed, long elapsedNanos, double targetRate,
+               LatencyHistogram latency, long maxNanos) {
+        this.sent = sent;
+        this.succeeded = succeeded;
+        this.failed = failed;
+        this.elapsedNanos = elapsedNanos;
+        this.targetRate = targetRate;
+        this.latency = latency;
+        this.maxNanos = maxNanos;
+    }
+
+    public long getSent() {
+        return sent;
+    }
+
+    public long getSucceeded() {
+        return succeeded;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    /**
+     * Gets the completed charges per second over the whole run.
+     *
+     * @return Throughput
+     */
+    public double getThroughput() {
+        return elapsedNanos == 0 ? 0 : (succeeded + failed) * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * Gets a latency percentile, measured from when each charge was scheduled
+     * to be sent rather than when it actually was.
+     *
+     * @param quantile Between 0 and 1, e.g. 0.999
+     * @return The latency, or Duration.ZERO if nothing completed
+     */
+    public Duration getLatency(double quantile) {
+        // The histogram reports its bucket's upper bound, which can lie above anything observed
+        return Duration.ofNanos(Math.max(0L, Math.min(latency.percentile(quantile), maxNanos)));
+    }
+
+    public Duration getMaxLatency() {
+        return Duration.ofNanos(maxNanos);
+    }
+
+    /**
+     * Formats the report for the console.
+     *
+     * @return Multi-line summary
+     */
+    public String format() {
+        return String.format("Sent %d at %.0f/s target, %d succeeded, %d failed%n"
+                        + "Throughput: %.1f charges/s%n"
+                        + "Latency: p50=%s p99=%s p99.9=%s max=%s%n",
+                sent, targetRate, succeeded, failed, getThroughput(),
+                millis(getLatency(0.50)), millis(getLatency(0.99)), millis(getLatency(0.999)), millis(getMaxLatency()));
+    }
+
+    private static String millis(Duration d) {
+        return String.format("%.2fms", d.toNanos() / 1e6);
+    }
+}
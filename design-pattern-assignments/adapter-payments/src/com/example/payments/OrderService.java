@@ -1,20 +1,152 @@
 package com.example.payments;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 public class OrderService {
     private final Map<String, PaymentGateway> gateways;
+    private final IdempotencyCache idempotency;
+    private final ChargeLedger ledger;
 
     public OrderService(Map<String, PaymentGateway> gateways) {
+        this(gateways, new IdempotencyCache());
+    }
+
+    public OrderService(Map<String, PaymentGateway> gateways, IdempotencyCache idempotency) {
+        this(gateways, idempotency, null);
+    }
+
+    /**
+     * @param ledger Durable record of order charges used by {@link #chargeOrder}, may be null
+     */
+    public OrderService(Map<String, PaymentGateway> gateways, IdempotencyCache idempotency, ChargeLedger ledger) {
         this.gateways = Objects.requireNonNull(gateways, "gateways");
+        this.idempotency = Objects.requireNonNull(idempotency, "idempotency");
+        this.ledger = ledger;
     }
 
     // Smell: still switches; your refactor should remove this by ensuring map contains adapters.
     public String charge(String provider, String customerId, int amountCents) {
+        return gateway(provider).charge(customerId, amountCents);
+    }
+
+    /**
+     * Charges at most once per idempotency key. A retry with the same key
+     * returns the original transaction ID without reaching the gateway; a
+     * duplicate arriving while the first call is in flight waits for it.
+     *
+     * @param idempotencyKey Caller-chosen key identifying this charge
+     * @return Transaction ID of the first successful call with this key
+     * @throws IllegalArgumentException if the provider is unknown or the key was used for a different charge
+     */
+    public String charge(String idempotencyKey, String provider, String customerId, int amountCents) {
+        return join(chargeAsync(idempotencyKey, provider, customerId, amountCents));
+    }
+
+    /**
+     * Charges an order and records it in the ledger: an intent before the
+     * gateway is called and the outcome after. An order that already
+     * succeeded, even before a restart, returns its transaction ID without
+     * charging again. An order left pending by a crash is refused until it has
+     * been reconciled with the provider.
+     *
+     * @param orderId The order; also the idempotency key
+     * @return Transaction ID
+     * @throws IllegalStateException if no ledger is configured or the order is pending from an earlier run
+     * @throws IllegalArgumentException if the provider is unknown or the order was charged with different details
+     */
+    public String chargeOrder(String orderId, String provider, String customerId, int amountCents) {
+        if (ledger == null) throw new IllegalStateException("no charge ledger configured");
+        PaymentGateway gw = gateway(provider);
+        LedgerEntry done = ledger.find(Objects.requireNonNull(orderId, "orderId"));
+        if (done != null && done.getStatus() == LedgerEntry.Status.SUCCEEDED) {
+            if (!done.getProvider().equals(provider) || !done.getCustomerId().equals(customerId)
+                    || done.getAmountCents() != amountCents) {
+                throw new IllegalArgumentException("order " + orderId + " was charged with different details");
+            }
+            return done.getTransactionId();
+        }
+        String fingerprint = provider + '|' + customerId + '|' + amountCents;
+        return join(idempotency.execute(orderId, fingerprint, () -> {
+            ledger.recordIntent(orderId, provider, customerId, amountCents);
+            return gw.chargeAsync(customerId, amountCents).whenComplete((id, failure) -> {
+                if (failure == null) ledger.recordSuccess(orderId, id);
+                else ledger.recordFailure(orderId, String.valueOf(failure.getMessage()));
+            });
+        }));
+    }
+
+    /**
+     * Idempotent variant of {@link #chargeAsync(String, String, String, int)}.
+     *
+     * @param idempotencyKey Caller-chosen key identifying this charge
+     * @return Future shared by every call with this key
+     * @throws IllegalArgumentException if the provider is unknown or the key was used for a different charge
+     */
+    public CompletableFuture<String> chargeAsync(String idempotencyKey, String provider, String customerId,
+                                                 int amountCents) {
+        PaymentGateway gw = gateway(provider);
+        String fingerprint = provider + '|' + customerId + '|' + amountCents;
+        return idempotency.execute(idempotencyKey, fingerprint, () -> gw.chargeAsync(customerId, amountCents));
+    }
+
+    /**
+     * Charges without blocking the caller.
+     *
+     * @return Future completed with the transaction ID
+     * @throws IllegalArgumentException if the provider is unknown
+     */
+    public CompletableFuture<String> chargeAsync(String provider, String customerId, int amountCents) {
+        return gateway(provider).chargeAsync(customerId, amountCents);
+    }
+
+    /**
+     * Issues all charges of a checkout concurrently instead of one after another.
+     * The combined future fails if any charge fails; the others are cancelled.
+     *
+     * @param requests Charges to make, possibly across several providers
+     * @return Future completed with the transaction IDs, in request order
+     */
+    public CompletableFuture<List<String>> chargeAll(List<ChargeRequest> requests) {
+        Objects.requireNonNull(requests, "requests");
+        List<CompletableFuture<String>> calls = new ArrayList<>(requests.size());
+        for (ChargeRequest r : requests) {
+            calls.add(chargeAsync(r.getProvider(), r.getCustomerId(), r.getAmountCents()));
+        }
+        CompletableFuture<List<String>> all = CompletableFuture.allOf(calls.toArray(new CompletableFuture<?>[0]))
+                .thenApply(ignored -> {
+                    List<String> ids = new ArrayList<>(calls.size());
+                    for (CompletableFuture<String> call : calls) ids.add(call.join());
+                    return ids;
+                });
+        for (CompletableFuture<String> call : calls) {
+            call.whenComplete((id, failure) -> {
+                if (failure != null) {
+                    calls.forEach(other -> other.cancel(true));
+                    all.completeExceptionally(failure);
+                }
+            });
+        }
+        return all;
+    }
+
+    private static String join(CompletableFuture<String> call) {
+        try {
+            return call.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw e;
+        }
+    }
+
+    private PaymentGateway gateway(String provider) {
         Objects.requireNonNull(provider, "provider");
         PaymentGateway gw = gateways.get(provider);
         if (gw == null) throw new IllegalArgumentException("unknown provider: " + provider);
-        return gw.charge(customerId, amountCents);
+        return gw;
     }
 }
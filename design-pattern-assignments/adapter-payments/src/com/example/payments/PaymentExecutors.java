@@ -0,0 +1,57 @@
+package com.example.payments;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executors for running blocking provider SDK calls off the caller's thread.
+ *
+ * On JDK 21+ each call gets its own virtual thread, so thousands of in-flight
+ * round trips cost almost nothing. The code targets Java 17, so virtual threads
+ * are looked up reflectively; on older runtimes an unbounded pool of daemon
+ * platform threads is used instead.
+ */
+public final class PaymentExecutors {
+
+    private PaymentExecutors() {
+    }
+
+    private static class Holder {
+        static final ExecutorService SHARED = newBlockingCallExecutor();
+    }
+
+    /**
+     * Gets a process-wide executor for blocking provider calls.
+     *
+     * @return The shared executor
+     */
+    public static ExecutorService shared() {
+        return Holder.SHARED;
+    }
+
+    /**
+     * Creates an executor that runs each blocking call on its own thread.
+     *
+     * @return A virtual-thread-per-task executor when available, otherwise a cached daemon pool
+     */
+    public static ExecutorService newBlockingCallExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(daemonThreads("payment-call"));
+        }
+    }
+
+    static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + "-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
@@ -1,5 +1,57 @@
 package com.example.payments;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
 public interface PaymentGateway {
     String charge(String customerId, int amountCents);
+
+    /**
+     * Charges without blocking the caller. The default runs {@link #charge}
+     * on the shared blocking-call executor; AsyncPaymentGateway adds timeouts
+     * and cancellation.
+     *
+     * @param customerId The customer ID
+     * @param amountCents The amount in cents
+     * @return Future completed with the transaction ID
+     */
+    default CompletableFuture<String> chargeAsync(String customerId, int amountCents) {
+        return CompletableFuture.supplyAsync(() -> charge(customerId, amountCents), PaymentExecutors.shared());
+    }
+
+    /**
+     * Charges several payments in one go. An adapter whose provider has a
+     * batch endpoint can override this to make a single round trip. The
+     * default starts every charge through {@link #chargeAsync} at once and
+     * waits for them all, so a batch takes about as long as its slowest charge
+     * rather than the sum of them.
+     *
+     * @param charges The charges
+     * @return One outcome per charge, in the same order
+     */
+    default List<ChargeOutcome> chargeBatch(List<Charge> charges) {
+        List<CompletableFuture<String>> calls = new ArrayList<>(charges.size());
+        for (Charge c : charges) {
+            try {
+                calls.add(chargeAsync(c.getCustomerId(), c.getAmountCents()));
+            } catch (RuntimeException e) {
+                calls.add(CompletableFuture.failedFuture(e));
+            }
+        }
+        List<ChargeOutcome> outcomes = new ArrayList<>(charges.size());
+        for (CompletableFuture<String> call : calls) {
+            try {
+                outcomes.add(ChargeOutcome.success(call.join()));
+            } catch (CompletionException e) {
+                outcomes.add(ChargeOutcome.failure(e.getCause() instanceof RuntimeException
+                        ? (RuntimeException) e.getCause() : e));
+            } catch (CancellationException e) {
+                outcomes.add(ChargeOutcome.failure(e));
+            }
+        }
+        return outcomes;
+    }
 }
@@ -0,0 +1,79 @@
+package com.example.payments;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stand-in for a remote payment provider, for load tests without a network.
+ *
+ * Each call sleeps for a latency drawn from a log-normal distribution fitted
+ * to the given median and p99, which gives the long right tail real providers
+ * have. A fraction of calls fail, and calls beyond the provider's quota are
+ * throttled the way a real API answers 429, without the latency of a full call.
+ */
+public final class ProviderSimulator {
+
+    // z-score of the 99th percentile of a standard normal distribution
+    private static final double Z_99 = 2.326;
+
+    private final String name;
+    private final double mu;
+    private final double sigma;
+    private final double errorRate;
+    private final TokenBucket quota;
+
+    /**
+     * Constructor.
+     *
+     * @param name Provider name used in error messages
+     * @param median Median call latency
+     * @param p99 99th percentile call latency; at least the median
+     * @param errorRate Fraction of calls that fail, between 0 and 1
+     * @param quotaPerSecond Calls per second before the provider throttles, or 0 for no quota
+     * @throws NullPointerException if any object parameter is null
+     * @throws IllegalArgumentException if a setting is out of range
+     */
+    public ProviderSimulator(String name, Duration median, Duration p99, double errorRate, double quotaPerSecond) {
+        this.name = Objects.requireNonNull(name, "name cannot be null");
+        Objects.requireNonNull(median, "median cannot be null");
+        Objects.requireNonNull(p99, "p99 cannot be null");
+        if (median.isNegative() || median.isZero() || p99.compareTo(median) < 0) {
+            throw new IllegalArgumentException("median must be positive and p99 at least the median");
+        }
+        if (errorRate < 0 || errorRate > 1) {
+            throw new IllegalArgumentException("errorRate must be between 0 and 1");
+        }
+        if (quotaPerSecond < 0) {
+            throw new IllegalArgumentException("quotaPerSecond cannot be negative");
+        }
+        this.mu = Math.log(median.toNanos());
+        this.sigma = Math.log((double) p99.toNanos() / median.toNanos()) / Z_99;
+        this.errorRate = errorRate;
+        this.quota = quotaPerSecond > 0
+                ? new TokenBucket(quotaPerSecond, (int) Math.max(1, Math.ceil(quotaPerSecond / 10))) : null;
+    }
+
+    /**
+     * Simulates one round trip to the provider.
+     *
+     * @throws IllegalStateException if the call is throttled or fails
+     */
+    void call() {
+        if (quota != null && quota.reserve(1, 0) < 0) {
+            throw new IllegalStateException(name + " 429: too many requests");
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long nanos = (long) Math.exp(mu + sigma * random.nextGaussian());
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(name + " call interrupted", e);
+        }
+        if (random.nextDouble() < errorRate) {
+            throw new IllegalStateException(name + " 503: service unavailable");
+        }
+    }
+}
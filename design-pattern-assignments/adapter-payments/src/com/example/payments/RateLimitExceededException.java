@@ -0,0 +1,14 @@
+package com.example.payments;
+
+/**
+ * Thrown when a charge is refused by a rate-limited gateway instead of being sent.
+ * Nothing reached the provider, so the charge is safe to retry later.
+ */
+public class RateLimitExceededException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public RateLimitExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.payments;
+
+/**
+ * What a rate-limited gateway does with a charge that exceeds its rate.
+ */
+public enum RateLimitPolicy {
+    /** Block the caller until a permit is free, up to the maximum wait. */
+    WAIT,
+    /** Fail immediately with RateLimitExceededException. */
+    REJECT,
+    /** Return at once and send the charge when its permit is free, up to the maximum wait. */
+    QUEUE
+}
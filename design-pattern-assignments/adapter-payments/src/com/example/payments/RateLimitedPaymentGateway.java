@@ -0,0 +1,216 @@
+package com.example.payments;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decorator that keeps calls to a gateway within the provider's quota.
+ *
+ * Each charge takes one permit from a lock-free {@link TokenBucket}; a batch
+ * takes one per charge. When no permit is free the {@link RateLimitPolicy}
+ * decides whether the caller waits, is rejected, or gets a future that is sent
+ * once its permit comes up. Waits are bounded by {@code maxWait}; a charge that
+ * would wait longer is rejected without using up a permit.
+ *
+ * Admitted, delayed and rejected charges and the total wait are counted, so
+ * throttling shows up before the provider starts throttling us.
+ */
+public class RateLimitedPaymentGateway implements PaymentGateway {
+
+    /** Default longest wait for a permit under WAIT and QUEUE. */
+    public static final Duration DEFAULT_MAX_WAIT = Duration.ofSeconds(1);
+
+    private final PaymentGateway delegate;
+    private final TokenBucket bucket;
+    private final RateLimitPolicy policy;
+    private final long maxWaitNanos;
+
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder delayed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+
+    /**
+     * Constructor with a burst of one second's worth of permits and the default maximum wait.
+     *
+     * @param delegate The gateway to protect
+     * @param permitsPerSecond Sustained charges per second
+     * @param policy What to do when over the rate
+     * @throws NullPointerException if delegate or policy is null
+     * @throws IllegalArgumentException if permitsPerSecond is not positive
+     */
+    public RateLimitedPaymentGateway(PaymentGateway delegate, double permitsPerSecond, RateLimitPolicy policy) {
+        this(delegate, permitsPerSecond, (int) Math.max(1, Math.ceil(permitsPerSecond)), policy, DEFAULT_MAX_WAIT);
+    }
+
+    /**
+     * Constructor with dependency injection.
+     *
+     * @param delegate The gateway to protect
+     * @param permitsPerSecond Sustained charges per second
+     * @param burst Charges allowed at once after a quiet period; also the largest batch REJECT can admit
+     * @param policy What to do when over the rate
+     * @param maxWait Longest a charge may wait for a permit under WAIT and QUEUE
+     * @throws NullPointerException if delegate, policy or maxWait is null
+     * @throws IllegalArgumentException if permitsPerSecond or burst is not positive, or maxWait is negative
+     */
+    public RateLimitedPaymentGateway(PaymentGateway delegate, double permitsPerSecond, int burst,
+                                     RateLimitPolicy policy, Duration maxWait) {
+        this.delegate = Objects.requireNonNull(delegate, "delegate cannot be null");
+        this.policy = Objects.requireNonNull(policy, "policy cannot be null");
+        Objects.requireNonNull(maxWait, "maxWait cannot be null");
+        if (!(permitsPerSecond > 0)) {
+            throw new IllegalArgumentException("permitsPerSecond must be positive");
+        }
+        if (burst < 1) {
+            throw new IllegalArgumentException("burst must be positive");
+        }
+        if (maxWait.isNegative()) {
+            throw new IllegalArgumentException("maxWait cannot be negative");
+        }
+        this.bucket = new TokenBucket(permitsPerSecond, burst);
+        this.maxWaitNanos = maxWait.toNanos();
+    }
+
+    /**
+     * Charges once a permit is free. QUEUE behaves like WAIT here, since the
+     * caller is waiting for the result anyway.
+     *
+     * @throws RateLimitExceededException if no permit is free within the allowed wait
+     */
+    @Override
+    public String charge(String customerId, int amountCents) {
+        acquireBlocking(1);
+        return delegate.charge(customerId, amountCents);
+    }
+
+    /**
+     * Charges asynchronously. Under WAIT the caller blocks for the permit;
+     * under QUEUE the returned future is sent when the permit comes up.
+     *
+     * @return Future completed with the transaction ID, or failed with
+     *         RateLimitExceededException if the charge was not admitted
+     */
+    @Override
+    public CompletableFuture<String> chargeAsync(String customerId, int amountCents) {
+        if (policy != RateLimitPolicy.QUEUE) {
+            try {
+                acquireBlocking(1);
+            } catch (RateLimitExceededException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+            return delegate.chargeAsync(customerId, amountCents);
+        }
+        long wait = reserve(1);
+        if (wait < 0) {
+            return CompletableFuture.failedFuture(exceeded(1));
+        }
+        if (wait == 0) {
+            return delegate.chargeAsync(customerId, amountCents);
+        }
+        return CompletableFuture.runAsync(() -> { },
+                        CompletableFuture.delayedExecutor(wait, TimeUnit.NANOSECONDS, PaymentExecutors.shared()))
+                .thenCompose(ignored -> delegate.chargeAsync(customerId, amountCents));
+    }
+
+    /**
+     * Charges a batch using one permit per charge. If the batch is not
+     * admitted, every charge fails with RateLimitExceededException.
+     */
+    @Override
+    public List<ChargeOutcome> chargeBatch(List<Charge> charges) {
+        if (charges.isEmpty()) {
+            return List.of();
+        }
+        try {
+            acquireBlocking(charges.size());
+        } catch (RateLimitExceededException e) {
+            List<ChargeOutcome> outcomes = new ArrayList<>(charges.size());
+            for (int i = 0; i < charges.size(); i++) {
+                outcomes.add(ChargeOutcome.failure(e));
+            }
+            return outcomes;
+        }
+        return delegate.chargeBatch(charges);
+    }
+
+    private void acquireBlocking(int permits) {
+        long wait = reserve(permits);
+        if (wait < 0) {
+            throw exceeded(permits);
+        }
+        if (wait > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            } catch (InterruptedException e) {
+                // The permit is spent either way; the call goes ahead with the interrupt flag kept
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private long reserve(int permits) {
+        long wait = bucket.reserve(permits, policy == RateLimitPolicy.REJECT ? 0L : maxWaitNanos);
+        if (wait < 0) {
+            rejected.add(permits);
+            return wait;
+        }
+        admitted.add(permits);
+        if (wait > 0) {
+            delayed.add(permits);
+            waitNanos.add(wait);
+        }
+        return wait;
+    }
+
+    private static RateLimitExceededException exceeded(int permits) {
+        return new RateLimitExceededException("rate limit exceeded for " + permits + " charge(s)");
+    }
+
+    /**
+     * Gets the number of charges let through, including delayed ones.
+     *
+     * @return Admitted charges
+     */
+    public long getAdmitted() {
+        return admitted.sum();
+    }
+
+    /**
+     * Gets the number of charges that had to wait for a permit.
+     *
+     * @return Delayed charges
+     */
+    public long getDelayed() {
+        return delayed.sum();
+    }
+
+    /**
+     * Gets the number of charges refused.
+     *
+     * @return Rejected charges
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * Gets the total time charges spent waiting for permits.
+     *
+     * @return Total wait
+     */
+    public Duration getTotalWait() {
+        return Duration.ofNanos(waitNanos.sum());
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s admitted=%d delayed=%d rejected=%d wait=%dms", policy, getAdmitted(),
+                getDelayed(), getRejected(), getTotalWait().toMillis());
+    }
+}
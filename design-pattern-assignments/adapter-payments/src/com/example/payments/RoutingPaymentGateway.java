@@ -0,0 +1,285 @@
+package com.example.payments;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gateway that routes each charge to the best of several equivalent gateways.
+ *
+ * Every gateway has a {@link GatewayHealth} tracking its recent latency and
+ * error rate. A charge goes to the healthy gateway with the lowest recent p95,
+ * weighted by its error rate (gateways without enough samples yet are tried
+ * first, in registration order). If the call fails, the charge fails over to the next healthy
+ * gateway. A gateway whose error rate crosses the threshold has its circuit
+ * opened and is skipped until a probe succeeds.
+ *
+ * Only provider and transport failures count against a gateway. A caller
+ * error (an invalid argument) would fail the same way everywhere, so it fails
+ * the charge at once without touching health or failing over. A
+ * {@link RateLimitExceededException} means a local limit on that one gateway
+ * refused the call before it reached the provider. It does not count against
+ * the gateway's health, but the charge still fails over to the next gateway.
+ *
+ * With hedging enabled, a charge still running after the chosen gateway's p95
+ * is also sent to the next gateway; the first success wins and the other call
+ * is cancelled. Hedging can charge the customer twice if both calls complete,
+ * so only enable it for gateways that deduplicate on their side.
+ */
+public class RoutingPaymentGateway implements PaymentGateway {
+
+    /** Default half-life of latency and error samples. */
+    public static final Duration DEFAULT_HALF_LIFE = Duration.ofSeconds(30);
+    /** Default error rate that opens a gateway's circuit. */
+    public static final double DEFAULT_ERROR_THRESHOLD = 0.5;
+    /** Default time a circuit stays open before a probe is allowed. */
+    public static final Duration DEFAULT_OPEN_FOR = Duration.ofSeconds(10);
+    private static final double HEDGE_QUANTILE = 0.95;
+    private static final long MIN_HEDGE_DELAY_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final List<GatewayHealth> healths;
+    private final boolean hedging;
+
+    /**
+     * Constructor with default health settings and no hedging.
+     *
+     * @param gateways Equivalent gateways by name, in order of preference
+     * @throws NullPointerException if gateways is null
+     * @throws IllegalArgumentException if gateways is empty
+     */
+    public RoutingPaymentGateway(Map<String, PaymentGateway> gateways) {
+        this(gateways, false);
+    }
+
+    /**
+     * Constructor with default health settings.
+     *
+     * @param gateways Equivalent gateways by name, in order of preference
+     * @param hedging Whether slow charges may be duplicated to another gateway
+     * @throws NullPointerException if gateways is null
+     * @throws IllegalArgumentException if gateways is empty
+     */
+    public RoutingPaymentGateway(Map<String, PaymentGateway> gateways, boolean hedging) {
+        this(gateways, hedging, DEFAULT_HALF_LIFE, DEFAULT_ERROR_THRESHOLD, DEFAULT_OPEN_FOR);
+    }
+
+    /**
+     * Constructor with dependency injection.
+     *
+     * @param gateways Equivalent gateways by name, in order of preference; use a LinkedHashMap to keep the order
+     * @param hedging Whether slow charges may be duplicated to another gateway
+     * @param halfLife How quickly old latency and error samples fade out
+     * @param errorThreshold Error rate, between 0 and 1, that opens a circuit
+     * @param openFor How long an open circuit waits before probing
+     * @throws NullPointerException if any parameter is null
+     * @throws IllegalArgumentException if gateways is empty or a setting is out of range
+     */
+    public RoutingPaymentGateway(Map<String, PaymentGateway> gateways, boolean hedging, Duration halfLife,
+                                 double errorThreshold, Duration openFor) {
+        Objects.requireNonNull(gateways, "gateways cannot be null");
+        Objects.requireNonNull(halfLife, "halfLife cannot be null");
+        Objects.requireNonNull(openFor, "openFor cannot be null");
+        if (gateways.isEmpty()) {
+            throw new IllegalArgumentException("gateways cannot be empty");
+        }
+        if (halfLife.isNegative() || halfLife.isZero()) {
+            throw new IllegalArgumentException("halfLife must be positive");
+        }
+        if (!(errorThreshold > 0 && errorThreshold <= 1)) {
+            throw new IllegalArgumentException("errorThreshold must be in (0, 1]");
+        }
+        if (openFor.isNegative()) {
+            throw new IllegalArgumentException("openFor cannot be negative");
+        }
+        List<GatewayHealth> list = new ArrayList<>(gateways.size());
+        for (Map.Entry<String, PaymentGateway> e : gateways.entrySet()) {
+            list.add(new GatewayHealth(e.getKey(), e.getValue(), halfLife.toNanos(), errorThreshold,
+                    openFor.toNanos()));
+        }
+        this.healths = List.copyOf(list);
+        this.hedging = hedging;
+    }
+
+    @Override
+    public String charge(String customerId, int amountCents) {
+        try {
+            return chargeAsync(customerId, amountCents).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Routes a charge, failing over and hedging as configured.
+     *
+     * @param customerId The customer ID
+     * @param amountCents The amount in cents
+     * @return Future completed with the first successful transaction ID, or
+     *         failed with IllegalStateException if every circuit is open
+     */
+    @Override
+    public CompletableFuture<String> chargeAsync(String customerId, int amountCents) {
+        return new Attempt(customerId, amountCents, ranked()).start();
+    }
+
+    /**
+     * Describes each gateway's health, e.g. for logging.
+     *
+     * @return One line per gateway
+     */
+    public List<String> status() {
+        List<String> lines = new ArrayList<>(healths.size());
+        for (GatewayHealth h : healths) {
+            lines.add(h.toString());
+        }
+        return lines;
+    }
+
+    private List<GatewayHealth> ranked() {
+        List<GatewayHealth> order = new ArrayList<>(healths);
+        // Stable sort: unknown latency first, then lowest expected cost, ties in registration order
+        order.sort(Comparator.comparingDouble(RoutingPaymentGateway::expectedCost));
+        return order;
+    }
+
+    // p95 scaled up by the error rate, since every failure costs a failover
+    private static double expectedCost(GatewayHealth h) {
+        long p95 = h.percentile(HEDGE_QUANTILE);
+        return p95 < 0 ? -1 : p95 / Math.max(0.01, 1 - h.errorRate());
+    }
+
+    // Failures the request itself caused; another gateway would refuse it just the same
+    private static boolean isCallerError(Throwable cause) {
+        return cause instanceof IllegalArgumentException || cause instanceof NullPointerException;
+    }
+
+    /**
+     * One routed charge: the calls made for it and which gateway is next.
+     */
+    private final class Attempt {
+        private final String customerId;
+        private final int amountCents;
+        private final List<GatewayHealth> candidates;
+        private final CompletableFuture<String> result = new CompletableFuture<>();
+        private final List<CompletableFuture<String>> calls = new ArrayList<>(2);
+        private int next;
+        private int outstanding;
+
+        Attempt(String customerId, int amountCents, List<GatewayHealth> candidates) {
+            this.customerId = customerId;
+            this.amountCents = amountCents;
+            this.candidates = candidates;
+        }
+
+        CompletableFuture<String> start() {
+            GatewayHealth first = launchNext();
+            if (first == null) {
+                result.completeExceptionally(new IllegalStateException("no payment gateway available: all circuits open"));
+                return result;
+            }
+            long delay = first.percentile(HEDGE_QUANTILE);
+            if (hedging && delay > 0) {
+                CompletableFuture.delayedExecutor(Math.max(delay, MIN_HEDGE_DELAY_NANOS), TimeUnit.NANOSECONDS,
+                        PaymentExecutors.shared()).execute(() -> {
+                    if (!result.isDone()) {
+                        launchNext();
+                    }
+                });
+            }
+            // If the caller gives up, stop every call still running
+            result.whenComplete((id, failure) -> cancelAll());
+            return result;
+        }
+
+        /**
+         * Sends the charge to the next gateway whose circuit allows it.
+         *
+         * @return The gateway used, or null if none is left
+         */
+        private GatewayHealth launchNext() {
+            GatewayHealth h;
+            synchronized (this) {
+                h = null;
+                while (next < candidates.size()) {
+                    GatewayHealth candidate = candidates.get(next++);
+                    if (candidate.tryAcquire()) {
+                        h = candidate;
+                        break;
+                    }
+                }
+                if (h == null) {
+                    return null;
+                }
+                outstanding++;
+            }
+            GatewayHealth gateway = h;
+            long start = System.nanoTime();
+            CompletableFuture<String> call;
+            try {
+                call = gateway.getGateway().chargeAsync(customerId, amountCents);
+            } catch (RuntimeException e) {
+                call = CompletableFuture.failedFuture(e);
+            }
+            synchronized (this) {
+                calls.add(call);
+            }
+            if (result.isDone()) {
+                // A late hedge or failover lost the race with the result
+                call.cancel(true);
+            }
+            call.whenComplete((id, failure) -> onComplete(gateway, System.nanoTime() - start, id, failure));
+            return gateway;
+        }
+
+        private void onComplete(GatewayHealth gateway, long nanos, String id, Throwable failure) {
+            Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                    ? failure.getCause() : failure;
+            if (cause instanceof CancellationException || cause instanceof RateLimitExceededException
+                    || isCallerError(cause)) {
+                // Says nothing about the provider, so give back the permit without a sample
+                gateway.release();
+            } else {
+                gateway.record(nanos, cause == null);
+            }
+            if (cause == null) {
+                result.complete(id);
+                return;
+            }
+            if (isCallerError(cause)) {
+                result.completeExceptionally(cause);
+                return;
+            }
+            if (result.isDone()) {
+                return;
+            }
+            launchNext();
+            boolean last;
+            synchronized (this) {
+                last = --outstanding == 0;
+            }
+            if (last) {
+                result.completeExceptionally(cause);
+            }
+        }
+
+        private void cancelAll() {
+            List<CompletableFuture<String>> running;
+            synchronized (this) {
+                running = new ArrayList<>(calls);
+            }
+            for (CompletableFuture<String> call : running) {
+                call.cancel(true);
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.payments;
+
+import java.util.Objects;
+
+/**
+ * FastPayClient whose calls behave like the real service: they take time,
+ * sometimes fail and get throttled, as configured by a ProviderSimulator.
+ */
+public class SimulatedFastPayClient extends FastPayClient {
+
+    private final ProviderSimulator simulator;
+
+    public SimulatedFastPayClient(ProviderSimulator simulator) {
+        this.simulator = Objects.requireNonNull(simulator, "simulator cannot be null");
+    }
+
+    @Override
+    public String payNow(String custId, int amountCents) {
+        simulator.call();
+        return super.payNow(custId, amountCents);
+    }
+}
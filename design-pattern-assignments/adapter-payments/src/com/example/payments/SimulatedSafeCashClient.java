@@ -0,0 +1,22 @@
+package com.example.payments;
+
+import java.util.Objects;
+
+/**
+ * SafeCashClient whose calls behave like the real service: they take time,
+ * sometimes fail and get throttled, as configured by a ProviderSimulator.
+ */
+public class SimulatedSafeCashClient extends SafeCashClient {
+
+    private final ProviderSimulator simulator;
+
+    public SimulatedSafeCashClient(ProviderSimulator simulator) {
+        this.simulator = Objects.requireNonNull(simulator, "simulator cannot be null");
+    }
+
+    @Override
+    public SafeCashPayment createPayment(int amount, String user) {
+        simulator.call();
+        return super.createPayment(amount, user);
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.payments;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket.
+ *
+ * Rather than a token count plus a refill timestamp, the whole bucket is one
+ * AtomicLong: the time at which the bucket would be full again if nothing
+ * else were taken (the "theoretical arrival time" of the generic cell rate
+ * algorithm). Taking permits advances that time by one interval per permit,
+ * so an acquire is a single compare-and-set with no refill thread and no lock.
+ */
+final class TokenBucket {
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final AtomicLong fullAt;
+
+    /**
+     * Creates a full bucket.
+     *
+     * @param permitsPerSecond Sustained rate
+     * @param burst Permits that may be taken at once after a quiet period
+     */
+    TokenBucket(double permitsPerSecond, int burst) {
+        this.intervalNanos = Math.max(1L, (long) (1_000_000_000L / permitsPerSecond));
+        this.burstNanos = intervalNanos * burst;
+        this.fullAt = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * Reserves permits, possibly in the future.
+     *
+     * @param permits Number of permits
+     * @param maxWaitNanos Longest acceptable wait; 0 to take only permits available now
+     * @return Nanoseconds until the reserved permits become available (0 if now),
+     *         or -1 if that would exceed maxWaitNanos, in which case nothing is reserved
+     */
+    long reserve(int permits, long maxWaitNanos) {
+        long cost = intervalNanos * permits;
+        while (true) {
+            long now = System.nanoTime();
+            long current = fullAt.get();
+            long base = current - now > 0 ? current : now;
+            long next = base + cost;
+            long wait = next - burstNanos - now;
+            if (wait > maxWaitNanos) {
+                return -1;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return Math.max(0L, wait);
+            }
+        }
+    }
+}